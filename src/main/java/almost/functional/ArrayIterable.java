@@ -26,7 +26,7 @@ import java.util.NoSuchElementException;
  *
  * @param <T> the type of the array elements.
  */
-public class ArrayIterable<T> implements Iterable<T> {
+public class ArrayIterable<T> implements SplittableIterable<T> {
     private final T[] data;
 
     /**
@@ -55,19 +55,38 @@ public class ArrayIterable<T> implements Iterable<T> {
         return new ArrayIterator<T>(data);    //NOPMD
     }
 
-    static public class ArrayIterator<D> extends ImmutableIterator<D> {
+    @Override
+    public int size() {
+        return data == null ? 0 : data.length;
+    }
+
+    @Override
+    public Iterator<T> iterator(final int from, final int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range " + from + " to " + to);
+        }
+        return new ArrayIterator<T>(data, from, to);
+    }
+
+    static public class ArrayIterator<D> extends ImmutableIterator<D> implements SizedIterator<D> {
         private final D[] data;
+        private final int end;
         private int index;
 
         public ArrayIterator(final D... data) {   //NOPMD
+            this(data, 0, data == null ? 0 : data.length);
+        }
+
+        ArrayIterator(final D[] data, final int from, final int to) {   //NOPMD
             super();
             this.data = data;
-            index = 0;
+            index = from;
+            end = to;
         }
 
         @Override
         public boolean hasNext() {
-            return data != null && index < data.length;
+            return index < end;
         }
 
         @Override
@@ -79,6 +98,16 @@ public class ArrayIterable<T> implements Iterable<T> {
             index++;
             return next;
         }
+
+        @Override
+        public long remaining() {
+            return end - index;
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
+        }
     }
 
 
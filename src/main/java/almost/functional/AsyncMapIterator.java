@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import almost.functional.reactive.Observer;
+import almost.functional.reactive.Promise;
+import almost.functional.utils.Throwables;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An iterator applying a function to the elements of another iterator asynchronously. Each application is run as a
+ * Promise on an executor, with up to concurrency promises in flight at a time. Results are returned either in the
+ * order of the source elements or in the order the promises complete. An exception or error thrown by the function
+ * is rethrown when its result would have been returned.
+ *
+ * @param <T> the type of the source elements
+ * @param <R> the type of the results
+ * @since 1.9.8
+ */
+final class AsyncMapIterator<T, R> extends ImmutableIterator<R> {
+    private final Iterator<? extends T> source;
+    private final Function<? super T, ? extends R> function;
+    private final int concurrency;
+    private final Executor executor;
+    private final boolean ordered;
+    private final Queue<Slot<R>> inOrder = new ArrayDeque<Slot<R>>();
+    private final BlockingQueue<Slot<R>> completed = new LinkedBlockingQueue<Slot<R>>();
+    private int outstanding;
+    private volatile boolean closed;
+
+    AsyncMapIterator(final Iterator<? extends T> source, final Function<? super T, ? extends R> function,
+                     final int concurrency, final Executor executor, final boolean ordered) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.source = source;
+        this.function = function;
+        this.concurrency = concurrency;
+        this.executor = executor;
+        this.ordered = ordered;
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return outstanding > 0;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Slot<R> slot;
+        try {
+            slot = ordered ? inOrder.poll().await() : completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+        }
+        outstanding--;
+        fill();
+        if (slot.error != null) {
+            if (slot.error instanceof Error) {
+                throw (Error) slot.error;
+            }
+            throw Throwables.propagate((Exception) slot.error);
+        }
+        return slot.value;
+    }
+
+    /**
+     * Stop starting new applications of the function. Those already in flight are allowed to complete.
+     */
+    void close() {
+        closed = true;
+    }
+
+    private void fill() {
+        while (!closed && outstanding < concurrency && source.hasNext()) {
+            final T element = source.next();
+            final Slot<R> slot = new Slot<R>(ordered ? null : completed);
+            executor.execute(new Promise<R>(new Supplier<R>() {
+                @Override
+                public R get() {
+                    try {
+                        return function.apply(element);
+                    } catch (Error e) {
+                        // Promise only observes exceptions, so carry errors in the slot and complete normally
+                        slot.error(e);
+                        return null;
+                    }
+                }
+            }, slot));
+            if (ordered) {
+                inOrder.add(slot);
+            }
+            outstanding++;
+        }
+    }
+
+    private static final class Slot<R> implements Observer<R> {
+        private final BlockingQueue<Slot<R>> completed;
+        private R value;
+        private Throwable error;
+        private boolean done;
+
+        Slot(final BlockingQueue<Slot<R>> completed) {
+            this.completed = completed;
+        }
+
+        @Override
+        public void next(final R value) {
+            this.value = value;
+        }
+
+        @Override
+        public void error(final Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void completed(final Boolean withoutError) {
+            synchronized (this) {
+                done = true;
+                notifyAll();
+            }
+            if (completed != null) {
+                completed.add(this);
+            }
+        }
+
+        synchronized Slot<R> await() throws InterruptedException {
+            while (!done) {
+                wait();
+            }
+            return this;
+        }
+    }
+}
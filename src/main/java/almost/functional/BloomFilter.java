@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import almost.functional.utils.Hashing;
+
+/**
+ * A Bloom filter, a fixed size probabilistic set. Testing for an element may report a false positive, at a rate
+ * chosen when the filter is created, but never a false negative. The memory used does not grow with the elements.
+ * Elements are reduced to a 64 bit hash before being tested, by default {@link Hashing#hash(Object)}, under which
+ * elements other than strings and whole numbers are taken for one another when their hash codes are equal. Supply a
+ * 64 bit hash function where that matters.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+final class BloomFilter<T> {
+    private static final double LN2 = Math.log(2);
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final ToLongFunction<? super T> hasher;
+
+    /**
+     * Create a filter sized for an expected number of elements and false positive probability.
+     *
+     * @param expectedItems the expected number of elements
+     * @param fpp           the desired false positive probability when holding the expected elements
+     */
+    BloomFilter(final long expectedItems, final double fpp) {
+        this(expectedItems, fpp, new ToLongFunction<T>() {
+            @Override
+            public long applyAsLong(T argument) {
+                return Hashing.hash(argument);
+            }
+        });
+    }
+
+    /**
+     * Create a filter sized for an expected number of elements and false positive probability, reducing elements to
+     * 64 bit hashes with the given function.
+     *
+     * @param expectedItems the expected number of elements
+     * @param fpp           the desired false positive probability when holding the expected elements
+     * @param hasher        the function returning a 64 bit hash of an element
+     */
+    BloomFilter(final long expectedItems, final double fpp, final ToLongFunction<? super T> hasher) {
+        if (expectedItems < 1) {
+            throw new IllegalArgumentException("Bloom filter requires positive expected items");
+        }
+        if (!(fpp > 0.0 && fpp < 1.0)) {
+            throw new IllegalArgumentException("Bloom filter requires a false positive probability between 0 and 1");
+        }
+        final long optimalBits = (long) Math.ceil(-expectedItems * Math.log(fpp) / (LN2 * LN2));
+        bits = new long[(int) Math.min(Integer.MAX_VALUE, Math.max(1L, (optimalBits + 63) / 64))];
+        bitCount = bits.length * 64L;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedItems * LN2));
+        this.hasher = hasher;
+    }
+
+    /**
+     * Add an element to the filter.
+     *
+     * @param element the element
+     * @return true if the element was definitely not present before, false if it may have been
+     */
+    boolean put(final T element) {
+        final long hash = Hashing.mix(hasher.applyAsLong(element));
+        final int first = (int) hash;
+        final int second = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= hashCount; i++) {
+            final long index = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+            final long mask = 1L << index;
+            final int word = (int) (index >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Test if an element might be in the filter.
+     *
+     * @param element the element
+     * @return false if the element is definitely not present, true if it may be
+     */
+    boolean mightContain(final T element) {
+        final long hash = Hashing.mix(hasher.applyAsLong(element));
+        final int first = (int) hash;
+        final int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            final long index = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+/**
+ * A mutable reduction operation that accumulates elements into a container, and optionally transforms the
+ * container into a final result once all the elements are accumulated. Containers holding separate partitions
+ * of the elements can be combined, so a collector can be used by a parallel Stream.
+ *
+ * @param <T> the type of the elements
+ * @param <A> the type of the container
+ * @param <R> the type of the result
+ * @see almost.functional.utils.Collectors
+ * @since 1.9.8
+ */
+public interface Collector<T, A, R> {
+    /**
+     * Used as a size hint when the number of elements is not known.
+     */
+    int UNKNOWN_SIZE = -1;
+
+    /**
+     * Create a new, empty, container.
+     *
+     * @param sizeHint the expected number of elements, or UNKNOWN_SIZE
+     * @return the container
+     */
+    A supply(int sizeHint);
+
+    /**
+     * Accumulate an element into a container.
+     *
+     * @param container the container
+     * @param element   the element
+     * @return the container, or a replacement for it
+     */
+    A accumulate(A container, T element);
+
+    /**
+     * Combine two containers, the elements of the second following those of the first.
+     *
+     * @param first  a container
+     * @param second a container
+     * @return the combined container, which may be one of the arguments
+     */
+    A combine(A first, A second);
+
+    /**
+     * Transform a container into the final result.
+     *
+     * @param container the container
+     * @return the result
+     */
+    R finish(A container);
+}
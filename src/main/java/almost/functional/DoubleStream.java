@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A sequence of double valued elements supporting sequential aggregate operations. Elements are not boxed unless
+ * explicitly mapped to objects. Intermediate operations are lazy.
+ *
+ * @since 1.9.8
+ */
+public final class DoubleStream implements Closeable {
+    private final DoubleIterator iterator;
+    private final Set<Runnable> closeHandlers;
+
+    DoubleStream(final DoubleIterator iterator, final Set<Runnable> closeHandlers) {
+        this.iterator = iterator;
+        this.closeHandlers = closeHandlers;
+    }
+
+    /**
+     * Create a stream of the elements provided.
+     *
+     * @param elements elements of the new stream
+     * @return a new stream
+     */
+    public static DoubleStream of(final double... elements) {
+        return new DoubleStream(new DoubleIterator() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < elements.length;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[index++];
+            }
+        }, new HashSet<Runnable>());
+    }
+
+    /**
+     * Create a stream based on an iterator.
+     *
+     * @param iterator the iterator
+     * @return a new stream
+     */
+    public static DoubleStream of(final DoubleIterator iterator) {
+        return new DoubleStream(iterator, new HashSet<Runnable>());
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream that match the given predicate.
+     *
+     * @param predicate to apply to each element to determine if it should be included
+     * @return the filtered stream
+     */
+    public DoubleStream filter(final DoublePredicate predicate) {
+        return new DoubleStream(new DoubleIterator() {
+            private double lookAhead;
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    final double element = iterator.nextDouble();
+                    if (predicate.test(element)) {
+                        lookAhead = element;
+                        ready = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return lookAhead;
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given operator to the elements of this stream.
+     *
+     * @param mapper operator to apply to each element
+     * @return the new stream
+     */
+    public DoubleStream map(final DoubleUnaryOperator mapper) {
+        return new DoubleStream(new DoubleIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return mapper.applyAsDouble(iterator.nextDouble());
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a stream of objects consisting of the results of applying the given function to the elements of this stream.
+     *
+     * @param mapper function to apply to each element
+     * @param <R>    the element type of the new stream
+     * @return the new stream
+     */
+    public <R> Stream<R> mapToObj(final DoubleFunction<? extends R> mapper) {
+        return new Stream<R>(Pipeline.of(new ImmutableIterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return mapper.apply(iterator.nextDouble());
+            }
+        }), false, closeHandlers);
+    }
+
+    /**
+     * Returns a stream of the elements of this stream, each boxed to Double.
+     *
+     * @return the new stream
+     */
+    public Stream<Double> boxed() {
+        return mapToObj(new DoubleFunction<Double>() {
+            @Override
+            public Double apply(final double argument) {
+                return argument;
+            }
+        });
+    }
+
+    /**
+     * Performs an action for each element of this stream.
+     *
+     * @param action an action to perform on the elements
+     */
+    public void forEach(final DoubleConsumer action) {
+        while (iterator.hasNext()) {
+            action.accept(iterator.nextDouble());
+        }
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream, using the provided identity value and accumulation operator.
+     *
+     * @param identity    the initial value
+     * @param accumulator the accumulation operator
+     * @return the result of the reduction
+     */
+    public double reduce(final double identity, final DoubleBinaryOperator accumulator) {
+        double result = identity;
+        while (iterator.hasNext()) {
+            result = accumulator.applyAsDouble(result, iterator.nextDouble());
+        }
+        return result;
+    }
+
+    /**
+     * The sum of the elements of this stream.
+     *
+     * @return the sum, zero if the stream is empty
+     */
+    public double sum() {
+        double sum = 0.0;
+        while (iterator.hasNext()) {
+            sum += iterator.nextDouble();
+        }
+        return sum;
+    }
+
+    /**
+     * The minimum element of this stream.
+     *
+     * @return the minimum, empty if the stream is empty
+     */
+    public Optional<Double> min() {
+        if (!iterator.hasNext()) {
+            return Optional.empty();
+        }
+        double min = iterator.nextDouble();
+        while (iterator.hasNext()) {
+            min = Math.min(min, iterator.nextDouble());
+        }
+        return Optional.of(min);
+    }
+
+    /**
+     * The maximum element of this stream.
+     *
+     * @return the maximum, empty if the stream is empty
+     */
+    public Optional<Double> max() {
+        if (!iterator.hasNext()) {
+            return Optional.empty();
+        }
+        double max = iterator.nextDouble();
+        while (iterator.hasNext()) {
+            max = Math.max(max, iterator.nextDouble());
+        }
+        return Optional.of(max);
+    }
+
+    /**
+     * The arithmetic mean of the elements of this stream.
+     *
+     * @return the average, empty if the stream is empty
+     */
+    public Optional<Double> average() {
+        final DoubleSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() > 0 ? Optional.of(statistics.getAverage()) : Optional.<Double>empty();
+    }
+
+    /**
+     * The element count in the stream.
+     *
+     * @return the count
+     */
+    public long count() {
+        long count = 0L;
+        while (iterator.hasNext()) {
+            iterator.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collect the count, sum, min, max and average of the elements of this stream in a single pass.
+     *
+     * @return the statistics
+     */
+    public DoubleSummaryStatistics summaryStatistics() {
+        final DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        forEach(statistics);
+        return statistics;
+    }
+
+    /**
+     * Add Runnables to run when the stream closes.
+     *
+     * @param closeHandler a Runnable
+     * @return the stream
+     */
+    public DoubleStream onClose(final Runnable closeHandler) {
+        closeHandlers.add(closeHandler);
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Stream.close(closeHandlers);
+    }
+}
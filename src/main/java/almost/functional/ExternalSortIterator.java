@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import almost.functional.utils.LogFactory;
+import almost.functional.utils.Throwables;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An iterator returning the elements of another iterator in sorted order. Up to a budget of elements are sorted
+ * in memory, beyond that sorted runs are written to temporary files and merged back lazily. Sorting starts on the
+ * first call to hasNext or next. Spilled elements must be Serializable. At most a fan-in of runs are merged at
+ * once, so when more runs than that are spilled they are first merged in passes into fewer, longer runs, bounding
+ * the number of files open at once.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+final class ExternalSortIterator<T> extends ImmutableIterator<T> implements Closeable {
+    private static final Logger LOGGER = LogFactory.getLogger();
+    private static final int RESET_INTERVAL = 1024;
+    private static final int DEFAULT_FAN_IN = 64;
+    private final Iterator<? extends T> source;
+    private final Comparator<? super T> comparator;
+    private final int memoryBudget;
+    private final int fanIn;
+    private final List<FileRun<T>> spills = new ArrayList<FileRun<T>>();
+    private Iterator<T> merged;
+
+    ExternalSortIterator(final Iterator<? extends T> source, final Comparator<? super T> comparator, final int memoryBudget) {
+        this(source, comparator, memoryBudget, DEFAULT_FAN_IN);
+    }
+
+    ExternalSortIterator(final Iterator<? extends T> source, final Comparator<? super T> comparator,
+                         final int memoryBudget, final int fanIn) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("sort memory budget must be positive");
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("sort fan-in must be at least two");
+        }
+        this.source = source;
+        this.comparator = comparator;
+        this.memoryBudget = memoryBudget;
+        this.fanIn = fanIn;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (merged == null) {
+            sort();
+        }
+        if (!merged.hasNext()) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return merged.next();
+    }
+
+    /**
+     * Close any open runs and delete the temporary files.
+     */
+    @Override
+    public void close() {
+        for (FileRun<T> spill : spills) {
+            spill.close();
+        }
+        spills.clear();
+    }
+
+    /**
+     * The number of runs currently spilled to temporary files.
+     *
+     * @return the number of runs
+     */
+    int spillCount() {
+        return spills.size();
+    }
+
+    private void sort() {
+        List<T> buffer = new ArrayList<T>();
+        int spilled = 0;
+        while (source.hasNext()) {
+            buffer.add(source.next());
+            if (buffer.size() >= memoryBudget && source.hasNext()) {
+                Collections.sort(buffer, comparator);
+                spills.add(spill(buffer.iterator(), spilled++));
+                buffer = new ArrayList<T>();
+            }
+        }
+        Collections.sort(buffer, comparator);
+        mergePasses();
+        final List<Run<T>> runs = new ArrayList<Run<T>>(spills);
+        runs.add(new MemoryRun<T>(buffer.iterator(), spilled));
+        merged = merge(runs);
+    }
+
+    /**
+     * Merge consecutive groups of spilled runs until no more than the fan-in remain. Each merged run keeps the order
+     * of its first member, so ties still resolve in encounter order.
+     */
+    private void mergePasses() {
+        while (spills.size() > fanIn) {
+            final List<FileRun<T>> passed = new ArrayList<FileRun<T>>();
+            try {
+                for (int start = 0; start < spills.size(); start += fanIn) {
+                    final List<FileRun<T>> group = spills.subList(start, Math.min(start + fanIn, spills.size()));
+                    passed.add(group.size() == 1 ? group.get(0) : spill(merge(group), group.get(0).order));
+                }
+            } catch (RuntimeException e) {
+                for (FileRun<T> run : passed) {
+                    run.close();
+                }
+                throw e;
+            }
+            spills.clear();
+            spills.addAll(passed);
+        }
+    }
+
+    private Iterator<T> merge(final List<? extends Run<T>> inputs) {
+        final PriorityQueue<Run<T>> runs = new PriorityQueue<Run<T>>(Math.max(1, inputs.size()), new Comparator<Run<T>>() {
+            @Override
+            public int compare(Run<T> first, Run<T> second) {
+                final int comparison = comparator.compare(first.head, second.head);
+                return comparison == 0 ? first.order - second.order : comparison;
+            }
+        });
+        for (Run<T> run : inputs) {
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+        return new ImmutableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !runs.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (runs.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final Run<T> run = runs.poll();
+                final T next = run.head;
+                if (run.advance()) {
+                    runs.add(run);
+                }
+                return next;
+            }
+        };
+    }
+
+    private FileRun<T> spill(final Iterator<T> sorted, final int order) {
+        File file = null;
+        try {
+            file = File.createTempFile("almost-functional-sort", ".run");
+            final ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            long written = 0;
+            try {
+                while (sorted.hasNext()) {
+                    outputStream.writeObject(sorted.next());
+                    if (++written % RESET_INTERVAL == 0) {
+                        outputStream.reset();
+                    }
+                }
+            } finally {
+                outputStream.close();
+            }
+            return new FileRun<T>(file, written, order);
+        } catch (IOException e) {
+            if (file != null && !file.delete()) {
+                LOGGER.log(Level.WARNING, "Unable to delete sort run " + file);
+            }
+            close();
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private abstract static class Run<T> {
+        protected final int order;
+        protected T head;
+
+        Run(final int order) {
+            this.order = order;
+        }
+
+        abstract boolean advance();
+    }
+
+    private static final class MemoryRun<T> extends Run<T> {
+        private final Iterator<T> iterator;
+
+        MemoryRun(final Iterator<T> iterator, final int order) {
+            super(order);
+            this.iterator = iterator;
+        }
+
+        @Override
+        boolean advance() {
+            if (iterator.hasNext()) {
+                head = iterator.next();
+                return true;
+            }
+            head = null; //NOPMD
+            return false;
+        }
+    }
+
+    private static final class FileRun<T> extends Run<T> {
+        private final File file;
+        private long remaining;
+        private ObjectInputStream inputStream;
+
+        FileRun(final File file, final long size, final int order) {
+            super(order);
+            this.file = file;
+            this.remaining = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        boolean advance() {
+            if (remaining == 0) {
+                head = null; //NOPMD
+                close();
+                return false;
+            }
+            try {
+                if (inputStream == null) {
+                    inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+                }
+                head = (T) inputStream.readObject();
+                remaining--;
+                return true;
+            } catch (Exception e) {
+                throw Throwables.propagate(e);
+            }
+        }
+
+        void close() {
+            remaining = 0;
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Exception closing sort run", e);
+                }
+                inputStream = null; //NOPMD
+            }
+            if (file.exists() && !file.delete()) {
+                LOGGER.log(Level.WARNING, "Unable to delete sort run " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+/**
+ * A producer of a sequence of elements that pushes each element to a consumer rather than wrapping it, so that
+ * nothing is allocated per element. Each call passes exactly one element to the consumer and returns true, or
+ * returns false once there are no more. Any element, including null, may be produced.
+ *
+ * @param <T> the type of the elements
+ * @see GeneratorIterable
+ * @since 1.9.8
+ */
+public interface Generator<T> {
+    /**
+     * Produce the next element.
+     *
+     * @param emit the consumer to pass the next element to
+     * @return true if an element was passed to emit, false if there are no more elements
+     */
+    boolean next(Consumer<? super T> emit);
+}
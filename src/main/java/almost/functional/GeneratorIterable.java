@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static almost.functional.utils.Preconditions.checkNotNull;
+
+/**
+ * Creates an immutable Iterable from a Generator. The resulting Iterator hasNext until the Generator returns
+ * false. Unlike SupplierIterable no Optional is allocated per element, the element emitted is held in a lookahead
+ * slot. Every iterator draws on the same Generator.
+ *
+ * @param <T> type of the elements
+ * @since 1.9.8
+ */
+public class GeneratorIterable<T> implements Iterable<T> {
+    private final Generator<T> generator;
+
+    /**
+     * Constructor accepting the Generator.
+     *
+     * @param generator a Generator of elements of type T
+     */
+    public GeneratorIterable(final Generator<T> generator) {
+        checkNotNull(generator, "Generator must not be null");
+        this.generator = generator;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Slot();
+    }
+
+    private final class Slot extends ImmutableIterator<T> implements Consumer<T> {
+        private T nextValue;
+        private boolean present;
+        private boolean done;
+
+        @Override
+        public void accept(final T consumable) {
+            nextValue = consumable;
+            present = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!present && !done) {
+                done = !generator.next(this);
+                if (!done && !present) {
+                    throw new IllegalStateException("generator returned true without emitting an element");
+                }
+            }
+            return present;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("next invoked on iterator where hasNext is false.");
+            }
+            final T value = nextValue;
+            nextValue = null; //NOPMD
+            present = false;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+/**
+ * A state object for collecting count, sum, min, max and average of int values without boxing them.
+ *
+ * @since 1.9.8
+ */
+public class IntSummaryStatistics implements IntConsumer {
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    @Override
+    public void accept(final int consumable) {
+        count++;
+        sum += consumable;
+        min = Math.min(min, consumable);
+        max = Math.max(max, consumable);
+    }
+
+    /**
+     * Combine the state of another instance into this one.
+     *
+     * @param other another instance
+     * @return this instance
+     */
+    public IntSummaryStatistics combine(final IntSummaryStatistics other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * The count of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The sum of values recorded, or zero if none were.
+     *
+     * @return the sum
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * The minimum value recorded, or Integer.MAX_VALUE if none were.
+     *
+     * @return the minimum
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * The maximum value recorded, or Integer.MIN_VALUE if none were.
+     *
+     * @return the maximum
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * The arithmetic mean of values recorded, or zero if none were.
+     *
+     * @return the average
+     */
+    public double getAverage() {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{count=" + count + ", sum=" + sum + ", min=" + min
+                + ", average=" + getAverage() + ", max=" + max + "}";
+    }
+}
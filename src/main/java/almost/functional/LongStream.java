@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A sequence of long valued elements supporting sequential aggregate operations. Elements are not boxed unless
+ * explicitly mapped to objects. Intermediate operations are lazy.
+ *
+ * @since 1.9.8
+ */
+public final class LongStream implements Closeable {
+    private final LongIterator iterator;
+    private final Set<Runnable> closeHandlers;
+
+    LongStream(final LongIterator iterator, final Set<Runnable> closeHandlers) {
+        this.iterator = iterator;
+        this.closeHandlers = closeHandlers;
+    }
+
+    /**
+     * Create a stream of the elements provided.
+     *
+     * @param elements elements of the new stream
+     * @return a new stream
+     */
+    public static LongStream of(final long... elements) {
+        return new LongStream(new LongIterator() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < elements.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[index++];
+            }
+        }, new HashSet<Runnable>());
+    }
+
+    /**
+     * Create a stream based on an iterator.
+     *
+     * @param iterator the iterator
+     * @return a new stream
+     */
+    public static LongStream of(final LongIterator iterator) {
+        return new LongStream(iterator, new HashSet<Runnable>());
+    }
+
+    /**
+     * Create a stream of the long values from startInclusive up to, but not including, endExclusive.
+     *
+     * @param startInclusive the first value
+     * @param endExclusive   the upper bound
+     * @return a new stream
+     */
+    public static LongStream range(final long startInclusive, final long endExclusive) {
+        return new LongStream(new LongIterator() {
+            private long next = startInclusive;
+
+            @Override
+            public boolean hasNext() {
+                return next < endExclusive;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return next++;
+            }
+        }, new HashSet<Runnable>());
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream that match the given predicate.
+     *
+     * @param predicate to apply to each element to determine if it should be included
+     * @return the filtered stream
+     */
+    public LongStream filter(final LongPredicate predicate) {
+        return new LongStream(new LongIterator() {
+            private long lookAhead;
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    final long element = iterator.nextLong();
+                    if (predicate.test(element)) {
+                        lookAhead = element;
+                        ready = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return lookAhead;
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given operator to the elements of this stream.
+     *
+     * @param mapper operator to apply to each element
+     * @return the new stream
+     */
+    public LongStream map(final LongUnaryOperator mapper) {
+        return new LongStream(new LongIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return mapper.applyAsLong(iterator.nextLong());
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a stream of objects consisting of the results of applying the given function to the elements of this stream.
+     *
+     * @param mapper function to apply to each element
+     * @param <R>    the element type of the new stream
+     * @return the new stream
+     */
+    public <R> Stream<R> mapToObj(final LongFunction<? extends R> mapper) {
+        return new Stream<R>(Pipeline.of(new ImmutableIterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return mapper.apply(iterator.nextLong());
+            }
+        }), false, closeHandlers);
+    }
+
+    /**
+     * Returns a stream of the elements of this stream, each boxed to Long.
+     *
+     * @return the new stream
+     */
+    public Stream<Long> boxed() {
+        return mapToObj(new LongFunction<Long>() {
+            @Override
+            public Long apply(final long argument) {
+                return argument;
+            }
+        });
+    }
+
+    /**
+     * Returns a DoubleStream of the elements of this stream converted to double.
+     *
+     * @return the new stream
+     */
+    public DoubleStream asDoubleStream() {
+        return new DoubleStream(new DoubleIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return iterator.nextLong();
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Performs an action for each element of this stream.
+     *
+     * @param action an action to perform on the elements
+     */
+    public void forEach(final LongConsumer action) {
+        while (iterator.hasNext()) {
+            action.accept(iterator.nextLong());
+        }
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream, using the provided identity value and accumulation operator.
+     *
+     * @param identity    the initial value
+     * @param accumulator the accumulation operator
+     * @return the result of the reduction
+     */
+    public long reduce(final long identity, final LongBinaryOperator accumulator) {
+        long result = identity;
+        while (iterator.hasNext()) {
+            result = accumulator.applyAsLong(result, iterator.nextLong());
+        }
+        return result;
+    }
+
+    /**
+     * The sum of the elements of this stream.
+     *
+     * @return the sum, zero if the stream is empty
+     */
+    public long sum() {
+        long sum = 0L;
+        while (iterator.hasNext()) {
+            sum += iterator.nextLong();
+        }
+        return sum;
+    }
+
+    /**
+     * The minimum element of this stream.
+     *
+     * @return the minimum, empty if the stream is empty
+     */
+    public Optional<Long> min() {
+        if (!iterator.hasNext()) {
+            return Optional.empty();
+        }
+        long min = iterator.nextLong();
+        while (iterator.hasNext()) {
+            min = Math.min(min, iterator.nextLong());
+        }
+        return Optional.of(min);
+    }
+
+    /**
+     * The maximum element of this stream.
+     *
+     * @return the maximum, empty if the stream is empty
+     */
+    public Optional<Long> max() {
+        if (!iterator.hasNext()) {
+            return Optional.empty();
+        }
+        long max = iterator.nextLong();
+        while (iterator.hasNext()) {
+            max = Math.max(max, iterator.nextLong());
+        }
+        return Optional.of(max);
+    }
+
+    /**
+     * The arithmetic mean of the elements of this stream.
+     *
+     * @return the average, empty if the stream is empty
+     */
+    public Optional<Double> average() {
+        final LongSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() > 0 ? Optional.of(statistics.getAverage()) : Optional.<Double>empty();
+    }
+
+    /**
+     * The element count in the stream.
+     *
+     * @return the count
+     */
+    public long count() {
+        long count = 0L;
+        while (iterator.hasNext()) {
+            iterator.nextLong();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collect the count, sum, min, max and average of the elements of this stream in a single pass.
+     *
+     * @return the statistics
+     */
+    public LongSummaryStatistics summaryStatistics() {
+        final LongSummaryStatistics statistics = new LongSummaryStatistics();
+        forEach(statistics);
+        return statistics;
+    }
+
+    /**
+     * Add Runnables to run when the stream closes.
+     *
+     * @param closeHandler a Runnable
+     * @return the stream
+     */
+    public LongStream onClose(final Runnable closeHandler) {
+        closeHandlers.add(closeHandler);
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Stream.close(closeHandlers);
+    }
+}
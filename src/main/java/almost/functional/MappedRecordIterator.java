@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import almost.functional.utils.LogFactory;
+import almost.functional.utils.Throwables;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An iterator over the delimiter separated records of a memory mapped file. The file is mapped in regions of up to
+ * regionSize bytes, and a region is remapped from the start of a record that crosses its end, so no record may be
+ * longer than a region. Records are located by scanning bytes and only decoded when returned by next, so the
+ * delimiter must encode as a single ASCII byte that cannot occur within other characters. Any ASCII delimiter is
+ * accepted for UTF-8, US-ASCII and the single byte ISO-8859 and windows-125x charsets. Other charsets, such as
+ * Shift_JIS or GBK, may use ASCII bytes within multi byte characters, so for them only control characters other than
+ * the escape and shift codes are accepted as delimiters. The mapping is released on close, or once the last record
+ * has been returned.
+ *
+ * @param <T> the type of the records
+ * @since 1.9.8
+ */
+abstract class MappedRecordIterator<T extends CharSequence> extends ImmutableIterator<T> implements Closeable {
+    static final int MAX_REGION = Integer.MAX_VALUE;
+    private static final Logger LOGGER = LogFactory.getLogger();
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final byte RETURN = '\r';
+    private static final byte ESCAPE = 0x1b;
+    private static final byte SHIFT_OUT = 0x0e;
+    private static final byte SHIFT_IN = 0x0f;
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+    private final byte delimiter;
+    private final boolean stripReturn;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int position;
+    private int recordStart;
+    private int recordEnd = -1;
+    private boolean closed;
+
+    private MappedRecordIterator(final File file, final char delimiter, final boolean stripReturn,
+                                 final Charset charset, final int regionSize) throws IOException {
+        final byte[] encoded = String.valueOf(delimiter).getBytes(charset);
+        if (encoded.length != 1 || encoded[0] < 0) {
+            throw new IllegalArgumentException("delimiter must encode as a single ASCII byte in " + charset);
+        }
+        if (!asciiExclusive(charset) && (encoded[0] >= ' ' || encoded[0] == ESCAPE || encoded[0] == SHIFT_OUT
+                || encoded[0] == SHIFT_IN)) {
+            throw new IllegalArgumentException("delimiter may occur within characters of " + charset
+                    + ", only control characters can delimit records");
+        }
+        if (regionSize < 1) {
+            throw new IllegalArgumentException("region size must be positive");
+        }
+        this.delimiter = encoded[0];
+        this.stripReturn = stripReturn;
+        this.regionSize = regionSize;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.size = channel.size();
+    }
+
+    /**
+     * Create an iterator returning each record decoded to a String.
+     */
+    static MappedRecordIterator<String> strings(final File file, final char delimiter, final boolean stripReturn,
+                                                final Charset charset, final int regionSize) throws IOException {
+        return new MappedRecordIterator<String>(file, delimiter, stripReturn, charset, regionSize) {
+            private byte[] bytes = new byte[0];
+
+            @Override
+            String decode(final ByteBuffer region, final int start, final int end) {
+                final int length = end - start;
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                region.position(start);
+                region.get(bytes, 0, length);
+                return new String(bytes, 0, length, charset);
+            }
+        };
+    }
+
+    /**
+     * Create an iterator returning each record as a CharSequence view. For ISO-8859-1 the view reads the mapped bytes
+     * directly, otherwise the record is decoded into a buffer reused for each record. Either way a view is only valid
+     * until the next call to hasNext or next.
+     */
+    static MappedRecordIterator<CharSequence> views(final File file, final char delimiter, final boolean stripReturn,
+                                                    final Charset charset, final int regionSize) throws IOException {
+        if (ISO_8859_1.equals(charset)) {
+            return new MappedRecordIterator<CharSequence>(file, delimiter, stripReturn, charset, regionSize) {
+                @Override
+                CharSequence decode(final ByteBuffer region, final int start, final int end) {
+                    return new ByteCharSequence(region, start, end);
+                }
+            };
+        }
+        return new MappedRecordIterator<CharSequence>(file, delimiter, stripReturn, charset, regionSize) {
+            private final CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            private CharBuffer chars = CharBuffer.allocate(0);
+
+            @Override
+            CharSequence decode(final ByteBuffer region, final int start, final int end) {
+                final ByteBuffer bytes = region.duplicate();
+                bytes.limit(end).position(start);
+                final int capacity = (int) Math.ceil((end - start) * (double) decoder.maxCharsPerByte());
+                if (chars.capacity() < capacity) {
+                    chars = CharBuffer.allocate(Math.max(capacity, chars.capacity() * 2));
+                }
+                chars.clear();
+                decoder.reset();
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+                chars.flip();
+                return chars;
+            }
+        };
+    }
+
+    abstract T decode(ByteBuffer region, int start, int end);
+
+    /**
+     * Whether a charset only uses ASCII bytes to encode ASCII characters.
+     */
+    static boolean asciiExclusive(final Charset charset) {
+        final String name = charset.name();
+        return "UTF-8".equals(name) || "US-ASCII".equals(name) || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (recordEnd >= 0) {
+            return true;
+        }
+        try {
+            if (locate()) {
+                return true;
+            }
+        } catch (IOException e) {
+            close();
+            throw Throwables.propagate(e);
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int end = recordEnd;
+        if (stripReturn && end > recordStart && region.get(end - 1) == RETURN) {
+            end--;
+        }
+        recordEnd = -1;
+        return decode(region, recordStart, end);
+    }
+
+    /**
+     * Release the file and the mapping. Mapped regions are unmapped by the garbage collector once unreferenced.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        region = null;
+        recordEnd = -1;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed closing mapped file", e);
+        }
+    }
+
+    private boolean locate() throws IOException {
+        if (regionStart + position >= size) {
+            return false;
+        }
+        if (region == null) {
+            map(regionStart + position);
+        }
+        int scan = position;
+        while (true) {
+            final int limit = region.limit();
+            for (int i = scan; i < limit; i++) {
+                if (region.get(i) == delimiter) {
+                    recordStart = position;
+                    recordEnd = i;
+                    position = i + 1;
+                    return true;
+                }
+            }
+            if (regionStart + limit >= size) {
+                recordStart = position;
+                recordEnd = limit;
+                position = limit;
+                return true;
+            }
+            if (position == 0) {
+                throw new IllegalStateException("record longer than mapping region of " + regionSize + " bytes");
+            }
+            scan = limit - position;
+            map(regionStart + position);
+        }
+    }
+
+    private void map(final long start) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+        regionStart = start;
+        position = 0;
+    }
+
+    private static final class ByteCharSequence implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        ByteCharSequence(final ByteBuffer bytes, final int start, final int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return (char) (bytes.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            if (from < 0 || to > length() || from > to) {
+                throw new IndexOutOfBoundsException(from + ", " + to);
+            }
+            return new ByteCharSequence(bytes, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            final char[] chars = new char[length()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (bytes.get(start + i) & 0xff);
+            }
+            return new String(chars);
+        }
+    }
+}
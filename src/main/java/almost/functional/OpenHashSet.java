@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+/**
+ * A minimal hash set using open addressing with linear probing. Elements are stored directly in a single array,
+ * avoiding the per entry objects of java.util.HashSet. Null is a permitted element. The table grows to at most
+ * 2^30 slots, beyond which adding a new element fails once all but one slot are used.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+final class OpenHashSet<T> {
+    private static final Object NULL = new Object();
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private Object[] table;
+    private int size;
+
+    OpenHashSet() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    OpenHashSet(final int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < expectedSize * 2 && capacity < MAXIMUM_CAPACITY) {
+            capacity <<= 1;
+        }
+        table = new Object[capacity];
+    }
+
+    /**
+     * Add an element to the set.
+     *
+     * @param element the element
+     * @return true if the element was not already present
+     */
+    boolean add(final T element) {
+        final Object key = element == null ? NULL : element;
+        final int mask = table.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        Object current;
+        while ((current = table[index]) != null) {
+            if (current.equals(key)) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == table.length - 1) {
+            throw new IllegalStateException("OpenHashSet has reached its maximum capacity");
+        }
+        table[index] = key;
+        if (++size > table.length >> 1 && table.length < MAXIMUM_CAPACITY) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Test if an element is in the set.
+     *
+     * @param element the element
+     * @return true if present
+     */
+    boolean contains(final T element) {
+        final Object key = element == null ? NULL : element;
+        final int mask = table.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        Object current;
+        while ((current = table[index]) != null) {
+            if (current.equals(key)) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * The number of elements in the set.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        final Object[] old = table;
+        table = new Object[old.length * 2];
+        final int mask = table.length - 1;
+        for (Object key : old) {
+            if (key != null) {
+                int index = spread(key.hashCode()) & mask;
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = key;
+            }
+        }
+    }
+
+    static int spread(final int hashCode) {
+        final int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
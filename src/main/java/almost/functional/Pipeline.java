@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import almost.functional.utils.Compose;
+import almost.functional.utils.Iterators;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The source and stages behind a Stream. A pipeline can be traversed either sequentially, as a single
+ * iterator, or as chunks of iterators that can be consumed independently by parallel workers. Stages are
+ * applied lazily to each, so work is only done as elements are pulled.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+abstract class Pipeline<T> {
+    static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    static final int BATCH_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Traverse the pipeline sequentially.
+     *
+     * @return an iterator over the elements
+     */
+    abstract Iterator<T> iterator();
+
+    /**
+     * Traverse the pipeline as independent chunks.
+     *
+     * @return an iterator over the chunks
+     */
+    abstract Iterator<Iterator<T>> chunks();
+
+    /**
+     * Whether the pipeline must only be traversed sequentially, because a stage shares state between the elements it
+     * returns. Stages added after such a stage inherit this.
+     *
+     * @return true if the pipeline must not be chunked
+     */
+    boolean isSequential() {
+        return false;
+    }
+
+    /**
+     * Create a pipeline over an iterable's elements. Iterables that are splittable, or random access lists, are chunked
+     * by index range, other iterables are chunked in batches. The size of collections is carried by their iterators.
+     *
+     * @param iterable the source of the elements
+     * @param <T>      the type of the elements
+     * @return a new pipeline
+     */
+    static <T> Pipeline<T> of(final Iterable<T> iterable) {
+        if (iterable instanceof SplittableIterable) {
+            return new RangePipeline<T>((SplittableIterable<T>) iterable);
+        }
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            final List<T> list = (List<T>) iterable;
+            return new RangePipeline<T>(new SplittableIterable<T>() {
+                @Override
+                public int size() {
+                    return list.size();
+                }
+
+                @Override
+                public Iterator<T> iterator(int from, int to) {
+                    return Iterators.sized(list.subList(from, to));
+                }
+
+                @Override
+                public Iterator<T> iterator() {
+                    return Iterators.sized(list);
+                }
+            });
+        }
+        if (iterable instanceof Collection) {
+            return of(Iterators.sized((Collection<T>) iterable));
+        }
+        return of(iterable.iterator());
+    }
+
+    /**
+     * Create a pipeline over an iterator's elements. The iterator is chunked in batches.
+     *
+     * @param iterator the source of the elements
+     * @param <T>      the type of the elements
+     * @return a new pipeline
+     */
+    static <T> Pipeline<T> of(final Iterator<T> iterator) {
+        return new Pipeline<T>() {
+            @Override
+            Iterator<T> iterator() {
+                return iterator;
+            }
+
+            @Override
+            Iterator<Iterator<T>> chunks() {
+                return Iterators.map(Iterators.batch(iterator, BATCH_SIZE), new Function<List<T>, Iterator<T>>() {
+                    @Override
+                    public Iterator<T> apply(List<T> argument) {
+                        return argument.iterator();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Add a stage that can be applied independently to each chunk.
+     *
+     * @param stage a function from an iterator of this pipeline's elements to an iterator of the new elements
+     * @param <R>   the new element type
+     * @return the new pipeline
+     */
+    <R> Pipeline<R> then(final Function<Iterator<T>, Iterator<R>> stage) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<R>() {
+            @Override
+            Iterator<R> iterator() {
+                return stage.apply(upstream.iterator());
+            }
+
+            @Override
+            Iterator<Iterator<R>> chunks() {
+                return Iterators.map(upstream.chunks(), stage);
+            }
+
+            @Override
+            boolean isSequential() {
+                return upstream.isSequential();
+            }
+        };
+    }
+
+    /**
+     * Add a stage that depends on the order of, or state across, all the elements. The stage is applied to the
+     * sequential traversal, and any chunking takes place after it.
+     *
+     * @param stage a function from an iterator of this pipeline's elements to an iterator of the new elements
+     * @param <R>   the new element type
+     * @return the new pipeline
+     */
+    <R> Pipeline<R> thenSequential(final Function<Iterator<T>, Iterator<R>> stage) {
+        final Pipeline<R> next = of(stage.apply(iterator()));
+        return isSequential() ? next.sequential() : next;
+    }
+
+    /**
+     * Mark the pipeline as one that must only be traversed sequentially, for stages whose elements share state, such
+     * as a reused buffer, and so must be consumed one at a time in order. Chunking such a pipeline yields a single
+     * chunk, and streams over it are never parallel.
+     *
+     * @return the sequential pipeline
+     */
+    Pipeline<T> sequential() {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            @Override
+            Iterator<T> iterator() {
+                return upstream.iterator();
+            }
+
+            @Override
+            Iterator<Iterator<T>> chunks() {
+                return Collections.singletonList(upstream.iterator()).iterator();
+            }
+
+            @Override
+            boolean isSequential() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Add a mapping stage. Adjacent maps are fused into a single composed function applied by one iterator.
+     *
+     * @param mapper function to apply to each element
+     * @param <R>    the new element type
+     * @return the new pipeline
+     */
+    <R> Pipeline<R> map(final Function<? super T, ? extends R> mapper) {
+        return new MapPipeline<T, R>(this, mapper);
+    }
+
+    /**
+     * Add a filtering stage. Adjacent filters are fused into a single flattened array of predicates applied by one
+     * iterator.
+     *
+     * @param predicate to apply to each element to determine if it should be included
+     * @return the new pipeline
+     */
+    @SuppressWarnings("unchecked")
+    Pipeline<T> filter(final Predicate<? super T> predicate) {
+        return new FilterPipeline<T>(this, (Predicate<? super T>[]) new Predicate<?>[]{predicate});
+    }
+
+    private static final class MapPipeline<S, T> extends Pipeline<T> {
+        private final Pipeline<S> upstream;
+        private final Function<? super S, ? extends T> mapper;
+
+        MapPipeline(final Pipeline<S> upstream, final Function<? super S, ? extends T> mapper) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        Iterator<T> iterator() {
+            return Iterators.<S, T>map(upstream.iterator(), mapper);
+        }
+
+        @Override
+        Iterator<Iterator<T>> chunks() {
+            return Iterators.map(upstream.chunks(), new Function<Iterator<S>, Iterator<T>>() {
+                @Override
+                public Iterator<T> apply(Iterator<S> argument) {
+                    return Iterators.<S, T>map(argument, mapper);
+                }
+            });
+        }
+
+        @Override
+        boolean isSequential() {
+            return upstream.isSequential();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <R> Pipeline<R> map(final Function<? super T, ? extends R> next) {
+            return new MapPipeline<S, R>(upstream, Compose.compose((Function<S, T>) mapper, next));
+        }
+    }
+
+    private static final class FilterPipeline<T> extends Pipeline<T> implements Predicate<T> {
+        private final Pipeline<T> upstream;
+        private final Predicate<? super T>[] predicates;
+
+        FilterPipeline(final Pipeline<T> upstream, final Predicate<? super T>[] predicates) {
+            this.upstream = upstream;
+            this.predicates = predicates;
+        }
+
+        @Override
+        public boolean test(final T testValue) {
+            for (Predicate<? super T> predicate : predicates) {
+                if (!predicate.test(testValue)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        Iterator<T> iterator() {
+            return Iterators.filter(upstream.iterator(), this);
+        }
+
+        @Override
+        Iterator<Iterator<T>> chunks() {
+            return Iterators.map(upstream.chunks(), new Function<Iterator<T>, Iterator<T>>() {
+                @Override
+                public Iterator<T> apply(Iterator<T> argument) {
+                    return Iterators.filter(argument, FilterPipeline.this);
+                }
+            });
+        }
+
+        @Override
+        boolean isSequential() {
+            return upstream.isSequential();
+        }
+
+        @Override
+        Pipeline<T> filter(final Predicate<? super T> predicate) {
+            final Predicate<? super T>[] fused = Arrays.copyOf(predicates, predicates.length + 1);
+            fused[predicates.length] = predicate;
+            return new FilterPipeline<T>(upstream, fused);
+        }
+    }
+
+    private static final class RangePipeline<T> extends Pipeline<T> {
+        private final SplittableIterable<T> source;
+
+        RangePipeline(final SplittableIterable<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        Iterator<T> iterator() {
+            return source.iterator();
+        }
+
+        @Override
+        Iterator<Iterator<T>> chunks() {
+            final int size = source.size();
+            final int chunkSize = Math.max(BATCH_SIZE / CHUNKS_PER_THREAD,
+                    (size + PARALLELISM * CHUNKS_PER_THREAD - 1) / (PARALLELISM * CHUNKS_PER_THREAD));
+            return new ImmutableIterator<Iterator<T>>() {
+                private int from = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return from < size;
+                }
+
+                @Override
+                public Iterator<T> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final int to = Math.min(size, from + chunkSize);
+                    final Iterator<T> chunk = source.iterator(from, to);
+                    from = to;
+                    return chunk;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import almost.functional.utils.Throwables;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An iterator that reads ahead of its consumer. The elements of another iterator are drained by a background daemon
+ * thread into a bounded queue, so a slow source overlaps with the processing of the elements already read. The
+ * thread starts on the first call to hasNext or next. An exception thrown by the source is rethrown to the consumer
+ * once the elements read before it have been returned. Closing stops the thread and discards any queued elements,
+ * after which no more elements are returned.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+final class PrefetchIterator<T> extends ImmutableIterator<T> implements Closeable {
+    private static final Object NULL = new Object();
+    private static final Object END = new Object();
+    private final Iterator<? extends T> source;
+    private final BlockingQueue<Object> queue;
+    private Thread worker;
+    private Object next;
+    private volatile boolean closed;
+
+    PrefetchIterator(final Iterator<? extends T> source, final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("prefetch buffer size must be positive");
+        }
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<Object>(bufferSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (next == null) {
+            if (worker == null) {
+                start();
+            }
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw Throwables.propagate(e);
+            }
+        }
+        if (next == END) {
+            close();
+            return false;
+        }
+        if (next instanceof Failure) {
+            final Throwable cause = ((Failure) next).cause;
+            next = END;
+            close();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof Exception) {
+                throw Throwables.propagate((Exception) cause);
+            }
+            throw new RuntimeException(cause);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Object element = next;
+        next = null;
+        return element == NULL ? null : (T) element;
+    }
+
+    /**
+     * Stop the background thread and discard any elements it has read ahead.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        queue.clear();
+    }
+
+    private void start() {
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!closed && source.hasNext()) {
+                        final T element = source.next();
+                        queue.put(element == null ? NULL : element);
+                    }
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable throwable) {
+                    try {
+                        queue.put(new Failure(throwable));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }, "almost-functional-prefetch");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static final class Failure {
+        private final Throwable cause;
+
+        Failure(final Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import java.util.Iterator;
+
+/**
+ * An iterator that knows how many elements remain. This allows operations like counting to complete without
+ * traversal, and containers to be allocated at their final size.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+public interface SizedIterator<T> extends Iterator<T> {
+    /**
+     * The number of elements remaining in the iteration.
+     *
+     * @return the number of elements, or an estimate of it if the size is not exact
+     */
+    long remaining();
+
+    /**
+     * Whether the value of remaining is exact, or only an estimate.
+     *
+     * @return true if exact
+     */
+    boolean isExact();
+}
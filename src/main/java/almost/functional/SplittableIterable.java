@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional;
+
+import java.util.Iterator;
+
+/**
+ * An Iterable of a known size whose elements can be iterated over in independent index ranges. This allows
+ * a parallel Stream to split the work across threads without copying the elements.
+ *
+ * @param <T> the type of the elements
+ * @since 1.9.8
+ */
+public interface SplittableIterable<T> extends Iterable<T> {
+    /**
+     * The number of elements.
+     *
+     * @return the number of elements
+     */
+    int size();
+
+    /**
+     * Returns an iterator over the elements from the from index, inclusive, to the to index, exclusive.
+     *
+     * @param from the index of the first element
+     * @param to   the index after the last element
+     * @return an iterator over the range
+     */
+    Iterator<T> iterator(int from, int to);
+}
@@ -19,23 +19,51 @@ package almost.functional;
 
 import almost.functional.utils.Iterators;
 import almost.functional.utils.LogFactory;
+import almost.functional.utils.Throwables;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static almost.functional.utils.Preconditions.checkNotNull;
+
 /**
- * A sequence of elements supporting sequential aggregate operations.
+ * A sequence of elements supporting sequential and parallel aggregate operations. Intermediate operations are
+ * lazy, and are applied to elements only as a terminal operation pulls them. A stream is Iterable, but like
+ * any terminal operation its iterator may only be used once.
  *
  * @param <T>
  * @since 1.8
  */
-public final class Stream<T> implements Closeable {
+public final class Stream<T> implements Iterable<T>, Closeable {
+    /**
+     * The number of elements sorted in memory, before sorted runs are spilled to temporary files.
+     */
+    public static final int DEFAULT_SORT_BUDGET = 1000000;
     private static final Logger LOGGER = LogFactory.getLogger();
-    private final Iterator<T> iterator;
-    private final Set<Runnable> closeHandlers = new HashSet<Runnable>();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final Pipeline<T> pipeline;
+    private final boolean parallel;
+    private final Set<Runnable> closeHandlers;
+    private final StreamProfile profile;
+    private Iterator<T> iterator;
 
     /**
      * Create a new stream of the elements that the iterable.iterator() will yield
@@ -45,7 +73,7 @@ public final class Stream<T> implements Closeable {
      * @return a new stream
      */
     public static <R> Stream<R> of(Iterable<R> iterable) {
-        return new Stream<R>(iterable.iterator());
+        return new Stream<R>(Pipeline.of(iterable));
     }
 
     /**
@@ -56,7 +84,7 @@ public final class Stream<T> implements Closeable {
      * @return a new stream
      */
     public static <R> Stream<R> of(R... elements) {
-        return new Stream<R>(new ArrayIterable.ArrayIterator<R>(elements));
+        return new Stream<R>(Pipeline.of(new ArrayIterable<R>(elements)));
     }
 
     /**
@@ -68,19 +96,215 @@ public final class Stream<T> implements Closeable {
      * @since 1.9.1
      */
     public static <R> Stream<R> of(Iterator<R> iterator) {
-        return new Stream<R>(iterator);
+        return new Stream<R>(Pipeline.of(iterator));
+    }
+
+    /**
+     * Create a stream of the elements produced by a generator. The generator is drawn on lazily, and ends the stream
+     * by returning false.
+     *
+     * @param generator the generator of the elements
+     * @param <R>       type of elements
+     * @return a new stream
+     * @since 1.9.8
+     */
+    public static <R> Stream<R> of(Generator<R> generator) {
+        return of(new GeneratorIterable<R>(generator).iterator());
+    }
+
+    /**
+     * Create a stream of the lines of a UTF-8 file. See {@link #records(File, char, Charset)}.
+     *
+     * @param file the file to read
+     * @return a new stream
+     * @throws IOException if the file can not be opened
+     * @since 1.9.8
+     */
+    public static Stream<String> lines(File file) throws IOException {
+        return lines(file, UTF_8);
+    }
+
+    /**
+     * Create a stream of the lines of a file. Lines are separated by a line feed, and a trailing carriage return
+     * is dropped. See {@link #records(File, char, Charset)}.
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @return a new stream
+     * @throws IOException if the file can not be opened
+     * @since 1.9.8
+     */
+    public static Stream<String> lines(File file, Charset charset) throws IOException {
+        return mapped(MappedRecordIterator.strings(file, '\n', true, charset, MappedRecordIterator.MAX_REGION));
+    }
+
+    /**
+     * Create a stream of CharSequence views of the lines of a file. A view is only valid until the next line is
+     * pulled, so it should be converted to a String if it is to be retained. See
+     * {@link #recordViews(File, char, Charset)}.
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @return a new stream
+     * @throws IOException if the file can not be opened
+     * @since 1.9.8
+     */
+    public static Stream<CharSequence> lineViews(File file, Charset charset) throws IOException {
+        return mapped(MappedRecordIterator.views(file, '\n', true, charset, MappedRecordIterator.MAX_REGION));
+    }
+
+    /**
+     * Create a stream of the delimiter separated records of a file. The file is memory mapped, records are found by
+     * scanning the mapped bytes and each is decoded only as it is pulled. The delimiter must encode as a single
+     * ASCII byte that cannot occur within other characters. Any ASCII delimiter may be used with UTF-8, US-ASCII and
+     * the ISO-8859 and windows-125x charsets, while other charsets, such as Shift_JIS, only accept control
+     * characters such as a newline or tab. The mapping is released when the stream is closed, or once it is
+     * exhausted.
+     *
+     * @param file      the file to read
+     * @param delimiter the character separating records
+     * @param charset   the charset of the file
+     * @return a new stream
+     * @throws IOException if the file can not be opened
+     * @throws IllegalArgumentException if the delimiter is not a single byte in the charset, or may occur within
+     *                                  other characters
+     * @since 1.9.8
+     */
+    public static Stream<String> records(File file, char delimiter, Charset charset) throws IOException {
+        return mapped(MappedRecordIterator.strings(file, delimiter, false, charset, MappedRecordIterator.MAX_REGION));
+    }
+
+    /**
+     * Create a stream of CharSequence views of the delimiter separated records of a file. For ISO-8859-1 files the
+     * views read the mapped bytes directly, for other charsets records are decoded into a reused buffer. A view is
+     * only valid until the next record is pulled, so it should be converted to a String if it is to be retained.
+     * See {@link #records(File, char, Charset)}.
+     *
+     * @param file      the file to read
+     * @param delimiter the character separating records
+     * @param charset   the charset of the file
+     * @return a new stream
+     * @throws IOException if the file can not be opened
+     * @throws IllegalArgumentException if the delimiter is not a single byte in the charset, or may occur within
+     *                                  other characters
+     * @since 1.9.8
+     */
+    public static Stream<CharSequence> recordViews(File file, char delimiter, Charset charset) throws IOException {
+        return mapped(MappedRecordIterator.views(file, delimiter, false, charset, MappedRecordIterator.MAX_REGION));
+    }
+
+    private static <R extends CharSequence> Stream<R> mapped(final MappedRecordIterator<R> iterator) {
+        return of((Iterator<R>) iterator).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    private Stream(Pipeline<T> pipeline) {
+        this(pipeline, false, new HashSet<Runnable>());
+    }
+
+    Stream(Pipeline<T> pipeline, boolean parallel, Set<Runnable> closeHandlers) {
+        this(pipeline, parallel, closeHandlers, null);
+    }
+
+    private Stream(Pipeline<T> pipeline, boolean parallel, Set<Runnable> closeHandlers, StreamProfile profile) {
+        this.pipeline = pipeline;
+        this.parallel = parallel && !pipeline.isSequential();
+        this.closeHandlers = closeHandlers;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns an equivalent stream whose forEach, count and three argument reduce operations split the work across a
+     * thread pool. Array and random access list sources are split by index range, other sources are split into
+     * batches as they are read. Streams with a stage that reuses one list for its elements, such as
+     * {@link #chunked(int, boolean)} with reuse, remain sequential.
+     *
+     * @return a parallel stream
+     * @since 1.9.8
+     */
+    public Stream<T> parallel() {
+        return new Stream<T>(pipeline, true, closeHandlers, profile);
+    }
+
+    /**
+     * Returns an equivalent stream whose operations are all performed sequentially on the calling thread.
+     *
+     * @return a sequential stream
+     * @since 1.9.8
+     */
+    public Stream<T> sequential() {
+        return new Stream<T>(pipeline, false, closeHandlers, profile);
     }
 
-    private Stream(Iterator<T> iterator) {
-        this.iterator = iterator;
+    /**
+     * Returns an equivalent stream that records metrics for its subsequent filter, map, flatMap, takeWhile and
+     * dropWhile stages into the given profile. When the stream is closed the profile is published to its sink.
+     * Streams that are not profiled pay no per element cost for this facility.
+     *
+     * @param profile the profile to record into
+     * @return a profiled stream
+     * @since 1.9.8
+     */
+    public Stream<T> profile(final StreamProfile profile) {
+        checkNotNull(profile, "profile requires a StreamProfile");
+        closeHandlers.add(new Runnable() {
+            @Override
+            public void run() {
+                profile.publish();
+            }
+        });
+        return withProfile(profile);
     }
 
     /**
-     * Performs an action for each element of this stream.
+     * Returns whether this stream will perform operations in parallel.
+     *
+     * @return true if parallel
+     * @since 1.9.8
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Returns an iterator over the elements of this stream. This is a terminal operation, and the same iterator is
+     * returned by every call.
+     *
+     * @return the iterator
+     * @since 1.9.8
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (iterator == null) {
+            iterator = pipeline.iterator();
+        }
+        return iterator;
+    }
+
+    /**
+     * Performs an action for each element of this stream. On a parallel stream the action is performed
+     * concurrently, in no particular order.
      *
      * @param action an action to perform on the elements
      */
-    public void forEach(Consumer<? super T> action) {
+    public void forEach(final Consumer<? super T> action) {
+        if (parallel) {
+            evaluateChunks(new Function<Iterator<T>, Boolean>() {
+                @Override
+                public Boolean apply(Iterator<T> argument) {
+                    while (argument.hasNext()) {
+                        action.accept(argument.next());
+                    }
+                    return true;
+                }
+            });
+            return;
+        }
+        final Iterator<T> iterator = iterator();
         while (iterator.hasNext()) {
             action.accept(iterator.next());
         }
@@ -93,6 +317,7 @@ public final class Stream<T> implements Closeable {
      * @return value of the reduction if any
      */
     public Optional<T> reduce(final BiFunction<T, ? super T, T> accumulator) {
+        final Iterator<T> iterator = iterator();
         boolean found = false;
         T result = null;
         while (iterator.hasNext()) {
@@ -115,6 +340,7 @@ public final class Stream<T> implements Closeable {
      * @return the result of the reduction
      */
     public <R> R reduce(final R initial, final BiFunction<R, ? super T, R> accumulator) {
+        final Iterator<T> iterator = iterator();
         R returnValue = initial;
         while (iterator.hasNext()) {
             returnValue = accumulator.apply(returnValue, iterator.next());
@@ -123,35 +349,640 @@ public final class Stream<T> implements Closeable {
     }
 
     /**
-     * Returns a stream consisting of the elements of this stream that match the given predicate.
+     * Performs a reduction on the elements of this stream, using the provided identity value, accumulation and
+     * combining functions. On a parallel stream each chunk of elements is reduced starting from the identity, and
+     * the chunk results are combined in encounter order.
+     *
+     * @param identity    the identity value for the combiner
+     * @param accumulator the accumulation function
+     * @param combiner    an associative function for combining two accumulated values
+     * @param <R>         return type
+     * @return the result of the reduction
+     * @since 1.9.8
+     */
+    public <R> R reduce(final R identity, final BiFunction<R, ? super T, R> accumulator, final BiFunction<R, R, R> combiner) {
+        if (!parallel) {
+            return reduce(identity, accumulator);
+        }
+        final List<R> partials = evaluateChunks(new Function<Iterator<T>, R>() {
+            @Override
+            public R apply(Iterator<T> argument) {
+                R returnValue = identity;
+                while (argument.hasNext()) {
+                    returnValue = accumulator.apply(returnValue, argument.next());
+                }
+                return returnValue;
+            }
+        });
+        R returnValue = identity;
+        for (R partial : partials) {
+            returnValue = combiner.apply(returnValue, partial);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Performs a mutable reduction of the elements of this stream using a Collector. When the number of elements
+     * is known in advance it is passed to the collector so that containers can be sized once. On a parallel stream
+     * each chunk of elements is collected separately and the containers are combined in encounter order.
+     *
+     * @param collector the collector
+     * @param <A>       the container type of the collector
+     * @param <R>       the result type
+     * @return the result of the reduction
+     * @see almost.functional.utils.Collectors
+     * @since 1.9.8
+     */
+    public <A, R> R collect(final Collector<? super T, A, R> collector) {
+        if (parallel) {
+            final List<A> partials = evaluateChunks(new Function<Iterator<T>, A>() {
+                @Override
+                public A apply(Iterator<T> argument) {
+                    return accumulate(collector, collector.supply(Iterators.sizeHint(argument)), argument);
+                }
+            });
+            if (partials.isEmpty()) {
+                return collector.finish(collector.supply(0));
+            }
+            A container = partials.get(0);
+            for (int i = 1; i < partials.size(); i++) {
+                container = collector.combine(container, partials.get(i));
+            }
+            return collector.finish(container);
+        }
+        final Iterator<T> iterator = iterator();
+        return collector.finish(accumulate(collector, collector.supply(Iterators.sizeHint(iterator)), iterator));
+    }
+
+    /**
+     * Performs a reduction of the elements of this stream for each key of a classifier function. Each element is folded
+     * directly into its key's accumulated value, so no per key collections of elements are built. As with reduce, the
+     * initial value is the starting point for every key, so it should be immutable.
+     *
+     * @param classifier  function producing the keys
+     * @param initial     the initial value for each key
+     * @param accumulator the accumulation function
+     * @param <K>         the key type
+     * @param <R>         the accumulated value type
+     * @return a Map of the keys to their accumulated values
+     * @since 1.9.8
+     */
+    public <K, R> Map<K, R> aggregateBy(final Function<? super T, ? extends K> classifier, final R initial,
+                                        final BiFunction<R, ? super T, R> accumulator) {
+        return aggregate(new HashMap<K, R>(), iterator(), classifier, initial, accumulator);
+    }
+
+    /**
+     * Performs a reduction of the elements of this stream for each key of a classifier function. On a parallel stream
+     * each worker thread aggregates the chunks it processes into its own partial Map, and at the end the partial Maps
+     * are merged using the combiner for keys found in more than one. The partial Maps are merged in no particular
+     * order, so the combiner should be commutative as well as associative.
+     *
+     * @param classifier  function producing the keys
+     * @param initial     the initial value for each key
+     * @param accumulator the accumulation function
+     * @param combiner    an associative function for combining two accumulated values
+     * @param <K>         the key type
+     * @param <R>         the accumulated value type
+     * @return a Map of the keys to their accumulated values
+     * @see #aggregateBy(Function, Object, BiFunction)
+     * @since 1.9.8
+     */
+    public <K, R> Map<K, R> aggregateBy(final Function<? super T, ? extends K> classifier, final R initial,
+                                        final BiFunction<R, ? super T, R> accumulator, final BiFunction<R, R, R> combiner) {
+        if (!parallel) {
+            return aggregateBy(classifier, initial, accumulator);
+        }
+        final ConcurrentMap<Thread, Map<K, R>> partials = new ConcurrentHashMap<Thread, Map<K, R>>();
+        evaluateChunks(new Function<Iterator<T>, Boolean>() {
+            @Override
+            public Boolean apply(Iterator<T> argument) {
+                Map<K, R> partial = partials.get(Thread.currentThread());
+                if (partial == null) {
+                    partial = new HashMap<K, R>();
+                    partials.put(Thread.currentThread(), partial);
+                }
+                aggregate(partial, argument, classifier, initial, accumulator);
+                return true;
+            }
+        });
+        final Map<K, R> result = new HashMap<K, R>();
+        for (Map<K, R> partial : partials.values()) {
+            for (Map.Entry<K, R> entry : partial.entrySet()) {
+                final R accumulated = result.get(entry.getKey());
+                result.put(entry.getKey(), accumulated == null ? entry.getValue() : combiner.apply(accumulated, entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream that match the given predicate. This is a lazy
+     * operation, elements are only tested as they are pulled by a subsequent operation.
      *
      * @param predicate to apply to each element to determine if it should be included
      * @return the filtered stream
      */
     public Stream<T> filter(Predicate<? super T> predicate) {
-        List<T> reduction = new ArrayList<T>();
-        while (iterator.hasNext()) {
-            final T element = iterator.next();
-            if (predicate.test(element)) {
-                reduction.add(element);
-            }
+        if (profile != null) {
+            return derive(pipeline.filter(profile.stage("filter").<T>filter(predicate)));
         }
-        return Stream.of(reduction);
+        return derive(pipeline.filter(predicate));
     }
 
     /**
      * Returns a stream consisting of the results of applying the given function to the elements of this stream.
+     * This is a lazy operation, elements are only mapped as they are pulled by a subsequent operation.
      *
      * @param mapper function to apply to each element
      * @param <R>    The element type of the new stream
      * @return the new stream
      */
     public <R> Stream<R> map(Function<? super T, ? extends R> mapper) {
-        List<R> list = new ArrayList<R>();
-        while (iterator.hasNext()) {
-            list.add(mapper.apply(iterator.next()));
+        if (profile != null) {
+            return derive(pipeline.<R>map(profile.stage("map").<T, R>map(mapper)));
+        }
+        return derive(pipeline.<R>map(mapper));
+    }
+
+    /**
+     * Returns a stream of the results of applying the given function to the elements of this stream asynchronously,
+     * in the order of this stream's elements. See {@link #mapAsync(Function, int, Executor, boolean)}.
+     *
+     * @param mapper      function to apply to each element
+     * @param concurrency the maximum number of applications in flight
+     * @param executor    the executor to run the applications on
+     * @param <R>         The element type of the new stream
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public <R> Stream<R> mapAsync(Function<? super T, ? extends R> mapper, int concurrency, Executor executor) {
+        return mapAsync(mapper, concurrency, executor, true);
+    }
+
+    /**
+     * Returns a stream of the results of applying the given function to the elements of this stream asynchronously.
+     * Each application is run on the executor as a {@link almost.functional.reactive.Promise}, with up to
+     * concurrency of them in flight, so slow calls such as remote lookups overlap. Results are returned in the order
+     * of this stream's elements if ordered, otherwise in the order they complete. An exception thrown by the function
+     * is rethrown when its result would have been returned. Closing the stream stops new applications from starting.
+     *
+     * @param mapper      function to apply to each element
+     * @param concurrency the maximum number of applications in flight
+     * @param executor    the executor to run the applications on
+     * @param ordered     whether results keep the order of this stream's elements
+     * @param <R>         The element type of the new stream
+     * @return the new stream
+     * @throws IllegalArgumentException if concurrency is not positive
+     * @since 1.9.8
+     */
+    public <R> Stream<R> mapAsync(final Function<? super T, ? extends R> mapper, final int concurrency,
+                                  final Executor executor, final boolean ordered) {
+        checkNotNull(mapper, "mapAsync requires a function");
+        checkNotNull(executor, "mapAsync requires an executor");
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("mapAsync requires a positive concurrency");
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<R>>() {
+            @Override
+            public Iterator<R> apply(Iterator<T> argument) {
+                final AsyncMapIterator<T, R> mapped = new AsyncMapIterator<T, R>(argument, mapper, concurrency,
+                        executor, ordered);
+                closeHandlers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        mapped.close();
+                    }
+                });
+                return mapped;
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the Iterables produced by applying the given function to each element
+     * of this stream. This is a lazy operation holding at most one inner iterator open at a time. Inner Iterables that are
+     * Closeable, including Streams, are closed once exhausted.
+     *
+     * @param mapper function producing an Iterable for each element
+     * @param <R>    The element type of the new stream
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public <R> Stream<R> flatMap(final Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        if (profile != null) {
+            final StreamProfile.Stage stage = profile.stage("flatMap");
+            return withProfile(null).map(stage.<T>entering())
+                    .flatMap(stage.<T, Iterable<? extends R>>timed(mapper))
+                    .map(stage.<R>leaving()).withProfile(profile);
+        }
+        return derive(pipeline.then(new Function<Iterator<T>, Iterator<R>>() {
+            @Override
+            public Iterator<R> apply(Iterator<T> argument) {
+                return Iterators.<T, R>flatMap(argument, mapper);
+            }
+        }));
+    }
+
+    /**
+     * Returns an IntStream consisting of the results of applying the given function to the elements of this stream.
+     * The results are not boxed. The returned stream is sequential.
+     *
+     * @param mapper function to apply to each element
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public IntStream mapToInt(final ToIntFunction<? super T> mapper) {
+        final Iterator<T> iterator = iterator();
+        return new IntStream(new IntIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return mapper.applyAsInt(iterator.next());
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a LongStream consisting of the results of applying the given function to the elements of this stream.
+     * The results are not boxed. The returned stream is sequential.
+     *
+     * @param mapper function to apply to each element
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public LongStream mapToLong(final ToLongFunction<? super T> mapper) {
+        final Iterator<T> iterator = iterator();
+        return new LongStream(new LongIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return mapper.applyAsLong(iterator.next());
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a DoubleStream consisting of the results of applying the given function to the elements of this stream.
+     * The results are not boxed. The returned stream is sequential.
+     *
+     * @param mapper function to apply to each element
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public DoubleStream mapToDouble(final ToDoubleFunction<? super T> mapper) {
+        final Iterator<T> iterator = iterator();
+        return new DoubleStream(new DoubleIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return mapper.applyAsDouble(iterator.next());
+            }
+        }, closeHandlers);
+    }
+
+    /**
+     * Returns a stream consisting of no more than maxSize elements of this stream. Once maxSize elements have
+     * been returned no further elements are drawn from this stream.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the truncated stream
+     * @throws IllegalArgumentException if maxSize is negative
+     * @since 1.9.8
+     */
+    public Stream<T> limit(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("limit requires a non negative size");
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                return Iterators.next(argument, maxSize);
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the remaining elements of this stream after discarding the first n elements.
+     *
+     * @param n the number of leading elements to discard
+     * @return the new stream
+     * @throws IllegalArgumentException if n is negative
+     * @since 1.9.8
+     */
+    public Stream<T> skip(final long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("skip requires a non negative count");
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                return Iterators.skip(argument, n);
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the leading elements of this stream that match the given predicate. The first
+     * element not matching ends the stream, and no further elements are drawn from this stream.
+     *
+     * @param predicate to apply to the leading elements
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public Stream<T> takeWhile(final Predicate<? super T> predicate) {
+        if (profile != null) {
+            final StreamProfile.Stage stage = profile.stage("takeWhile");
+            return withProfile(null).map(stage.<T>entering()).takeWhile(stage.<T>timed(predicate))
+                    .map(stage.<T>leaving()).withProfile(profile);
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                return Iterators.takeWhile(argument, predicate);
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the elements of this stream remaining after discarding the leading elements that
+     * match the given predicate.
+     *
+     * @param predicate to apply to the leading elements
+     * @return the new stream
+     * @since 1.9.8
+     */
+    public Stream<T> dropWhile(final Predicate<? super T> predicate) {
+        if (profile != null) {
+            final StreamProfile.Stage stage = profile.stage("dropWhile");
+            return withProfile(null).map(stage.<T>entering()).dropWhile(stage.<T>timed(predicate))
+                    .map(stage.<T>leaving()).withProfile(profile);
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                return Iterators.dropWhile(argument, predicate);
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of consecutive, non overlapping lists of this stream's elements. Every list holds size
+     * elements except possibly the last. This is a lazy operation, each chunk is gathered as it is pulled.
+     *
+     * @param size the number of elements per chunk
+     * @return a stream of chunks
+     * @throws IllegalArgumentException if size is not positive
+     * @since 1.9.8
+     */
+    public Stream<List<T>> chunked(final int size) {
+        return chunked(size, false);
+    }
+
+    /**
+     * Returns a stream of consecutive, non overlapping lists of this stream's elements. Every list holds size
+     * elements except possibly the last. If reuse is requested a single list is refilled for every chunk, so each
+     * chunk must be consumed before the next is pulled and must not be retained. The stream is then evaluated
+     * sequentially from this stage on, even if it is, or is made, parallel.
+     *
+     * @param size  the number of elements per chunk
+     * @param reuse whether to refill one list rather than allocating one per chunk
+     * @return a stream of chunks
+     * @throws IllegalArgumentException if size is not positive
+     * @since 1.9.8
+     */
+    public Stream<List<T>> chunked(final int size, final boolean reuse) {
+        if (size < 1) {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+        final Pipeline<List<T>> chunks = pipeline.thenSequential(new Function<Iterator<T>, Iterator<List<T>>>() {
+            @Override
+            public Iterator<List<T>> apply(Iterator<T> argument) {
+                return Iterators.batch(argument, size, reuse);
+            }
+        });
+        return derive(reuse ? chunks.sequential() : chunks);
+    }
+
+    /**
+     * Returns a stream of sliding windows over this stream's elements. Each window holds size elements and starts
+     * step elements after the previous one. Only complete windows are returned.
+     *
+     * @param size the number of elements per window
+     * @param step the distance between the starts of consecutive windows
+     * @return a stream of windows
+     * @throws IllegalArgumentException if size or step is not positive
+     * @since 1.9.8
+     */
+    public Stream<List<T>> sliding(final int size, final int step) {
+        return sliding(size, step, false);
+    }
+
+    /**
+     * Returns a stream of sliding windows over this stream's elements. Each window holds size elements and starts
+     * step elements after the previous one. Only complete windows are returned. If reuse is requested a single list
+     * is shifted and refilled for every window, so each window must be consumed before the next is pulled and must
+     * not be retained. The stream is then evaluated sequentially from this stage on, even if it is, or is made,
+     * parallel.
+     *
+     * @param size  the number of elements per window
+     * @param step  the distance between the starts of consecutive windows
+     * @param reuse whether to refill one list rather than allocating one per window
+     * @return a stream of windows
+     * @throws IllegalArgumentException if size or step is not positive
+     * @since 1.9.8
+     */
+    public Stream<List<T>> sliding(final int size, final int step, final boolean reuse) {
+        if (size < 1 || step < 1) {
+            throw new IllegalArgumentException("window size and step must be positive");
+        }
+        final Pipeline<List<T>> windows = pipeline.thenSequential(new Function<Iterator<T>, Iterator<List<T>>>() {
+            @Override
+            public Iterator<List<T>> apply(Iterator<T> argument) {
+                return Iterators.sliding(argument, size, step, reuse);
+            }
+        });
+        return derive(reuse ? windows.sequential() : windows);
+    }
+
+    /**
+     * Returns a stream that reads ahead of its consumer. Elements of this stream are drained by a background daemon
+     * thread into a queue holding up to bufferSize elements, so that a slow source, such as one doing I/O, overlaps
+     * with the processing of the elements already read. The thread starts when the first element is pulled. An
+     * exception thrown by this stream is rethrown to the consumer after the elements read before it. Closing the
+     * stream stops the thread.
+     *
+     * @param bufferSize the maximum number of elements read ahead
+     * @return the new stream
+     * @throws IllegalArgumentException if bufferSize is not positive
+     * @since 1.9.8
+     */
+    public Stream<T> prefetch(final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("prefetch buffer size must be positive");
+        }
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                final PrefetchIterator<T> prefetcher = new PrefetchIterator<T>(argument, bufferSize);
+                closeHandlers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        prefetcher.close();
+                    }
+                });
+                return prefetcher;
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the distinct elements of this stream, according to Object.equals(Object). The first
+     * occurrence of each element is retained. The elements seen are held in an open addressing hash set, so memory
+     * grows with the number of distinct elements.
+     *
+     * @return the new stream
+     * @see #distinctApprox(long, double)
+     * @since 1.9.8
+     */
+    public Stream<T> distinct() {
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                final OpenHashSet<T> seen = new OpenHashSet<T>(Iterators.sizeHint(argument));
+                return Iterators.filter(argument, new Predicate<T>() {
+                    @Override
+                    public boolean test(T testValue) {
+                        return seen.add(testValue);
+                    }
+                });
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the approximately distinct elements of this stream. The elements seen are recorded in a
+     * Bloom filter of fixed size, so memory does not grow with the elements. Every duplicate is removed, but with
+     * probability of about fpp, once expectedItems distinct elements have been seen, an element that has not been
+     * seen before is also removed. Strings, and Long, Integer, Short and Byte values, are hashed over their whole
+     * value, other elements from their 32 bit hashCode, so two such elements with equal hash codes are always taken
+     * as duplicates. Where that matters, as with hundreds of millions of distinct elements, use
+     * {@link #distinctApprox(long, double, ToLongFunction)}.
+     *
+     * @param expectedItems the expected number of distinct elements
+     * @param fpp           the acceptable probability of falsely removing an element
+     * @return the new stream
+     * @throws IllegalArgumentException if expectedItems is not positive or fpp is not between 0 and 1
+     * @since 1.9.8
+     */
+    public Stream<T> distinctApprox(final long expectedItems, final double fpp) {
+        return distinctApprox(new BloomFilter<T>(expectedItems, fpp));
+    }
+
+    /**
+     * Returns a stream of the approximately distinct elements of this stream, as
+     * {@link #distinctApprox(long, double)}, with elements reduced to the 64 bit hashes returned by the given function.
+     * Only elements with equal 64 bit hashes are always taken as duplicates.
+     *
+     * @param expectedItems the expected number of distinct elements
+     * @param fpp           the acceptable probability of falsely removing an element
+     * @param hasher        the function returning a 64 bit hash of an element
+     * @return the new stream
+     * @throws IllegalArgumentException if expectedItems is not positive, fpp is not between 0 and 1 or hasher is null
+     * @since 1.9.8
+     */
+    public Stream<T> distinctApprox(final long expectedItems, final double fpp, final ToLongFunction<? super T> hasher) {
+        checkNotNull(hasher, "distinctApprox requires a hash function");
+        return distinctApprox(new BloomFilter<T>(expectedItems, fpp, hasher));
+    }
+
+    private Stream<T> distinctApprox(final BloomFilter<T> seen) {
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                return Iterators.filter(argument, new Predicate<T>() {
+                    @Override
+                    public boolean test(T testValue) {
+                        return seen.put(testValue);
+                    }
+                });
+            }
+        }));
+    }
+
+    /**
+     * Returns a stream of the elements of this stream sorted in their natural order. This is equivalent to
+     * sorted(comparator) with a comparator of the natural order.
+     *
+     * @return the sorted stream
+     * @throws ClassCastException on traversal, if the elements are not Comparable
+     * @since 1.9.8
+     */
+    public Stream<T> sorted() {
+        return sorted(new Comparator<T>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public int compare(T first, T second) {
+                return ((Comparable<? super T>) first).compareTo(second);
+            }
+        });
+    }
+
+    /**
+     * Returns a stream of the elements of this stream sorted by a comparator, with the default in memory budget of
+     * DEFAULT_SORT_BUDGET elements.
+     *
+     * @param comparator the comparator
+     * @return the sorted stream
+     * @see #sorted(Comparator, int)
+     * @since 1.9.8
+     */
+    public Stream<T> sorted(final Comparator<? super T> comparator) {
+        return sorted(comparator, DEFAULT_SORT_BUDGET);
+    }
+
+    /**
+     * Returns a stream of the elements of this stream sorted by a comparator. The sort is stable. Up to memoryBudget
+     * elements are sorted in memory, beyond that sorted runs are written to temporary files, and lazily merged back.
+     * Spilled elements must be Serializable. The temporary files are deleted when the sorted elements are exhausted
+     * or when the stream is closed. No elements are read from this stream until the first sorted element is needed.
+     *
+     * @param comparator   the comparator
+     * @param memoryBudget the maximum number of elements to sort in memory
+     * @return the sorted stream
+     * @throws IllegalArgumentException if the memoryBudget is not positive
+     * @since 1.9.8
+     */
+    public Stream<T> sorted(final Comparator<? super T> comparator, final int memoryBudget) {
+        checkNotNull(comparator, "sorted requires a comparator");
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("sorted requires a positive memory budget");
         }
-        return Stream.of(list);
+        return derive(pipeline.thenSequential(new Function<Iterator<T>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<T> argument) {
+                final ExternalSortIterator<T> sorter = new ExternalSortIterator<T>(argument, comparator, memoryBudget);
+                closeHandlers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        sorter.close();
+                    }
+                });
+                return sorter;
+            }
+        }));
     }
 
     /**
@@ -162,6 +993,7 @@ public final class Stream<T> implements Closeable {
      * @return true if any elements of the stream match the provided predicate
      */
     public boolean anyMatch(Predicate<? super T> predicate) {
+        final Iterator<T> iterator = iterator();
         while (iterator.hasNext()) {
             if (predicate.test(iterator.next())) {
                 return true;
@@ -189,6 +1021,7 @@ public final class Stream<T> implements Closeable {
      * @return true if all match the provided predicate
      */
     public boolean allMatch(Predicate<? super T> predicate) {
+        final Iterator<T> iterator = iterator();
         while (iterator.hasNext()) {
             if (!predicate.test(iterator.next())) {
                 return false;
@@ -198,22 +1031,110 @@ public final class Stream<T> implements Closeable {
     }
 
     /**
-     * The element count in the stream.
+     * The element count in the stream. When the number of elements is known exactly, for example for streams of
+     * arrays or collections and the results of mapping them, the count is returned without traversing the elements.
+     * On a parallel stream each chunk of elements is counted concurrently.
      *
      * @return the count
      */
     public long count() {
-        long count = 0L;
+        if (parallel) {
+            long count = 0L;
+            for (Long partial : evaluateChunks(new Function<Iterator<T>, Long>() {
+                @Override
+                public Long apply(Iterator<T> argument) {
+                    return count(argument);
+                }
+            })) {
+                count += partial;
+            }
+            return count;
+        }
+        return count(iterator());
+    }
 
-        while (iterator.hasNext()) {
-            count++;
-            iterator.next();
+    /**
+     * Returns the minimum element of this stream according to the provided comparator. Where several elements are
+     * equally minimal the first encountered is returned. On a parallel stream each chunk is searched concurrently.
+     *
+     * @param comparator the comparator ordering the elements
+     * @return an Optional of the minimum element, empty if the stream is empty
+     * @since 1.9.8
+     */
+    public Optional<T> min(final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "min requires a comparator");
+        return max(Collections.reverseOrder(comparator));
+    }
+
+    /**
+     * Returns the maximum element of this stream according to the provided comparator. Where several elements are
+     * equally maximal the first encountered is returned. On a parallel stream each chunk is searched concurrently.
+     *
+     * @param comparator the comparator ordering the elements
+     * @return an Optional of the maximum element, empty if the stream is empty
+     * @since 1.9.8
+     */
+    public Optional<T> max(final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "max requires a comparator");
+        if (parallel) {
+            final List<Optional<T>> partials = evaluateChunks(new Function<Iterator<T>, Optional<T>>() {
+                @Override
+                public Optional<T> apply(Iterator<T> argument) {
+                    return max(argument, comparator);
+                }
+            });
+            final List<T> found = new ArrayList<T>(partials.size());
+            for (Optional<T> partial : partials) {
+                if (partial.isPresent()) {
+                    found.add(partial.get());
+                }
+            }
+            return max(found.iterator(), comparator);
         }
-        return count;
+        return max(iterator(), comparator);
+    }
+
+    /**
+     * Returns the k greatest elements of this stream according to the provided comparator, greatest first. A binary
+     * heap of at most k elements is maintained, so this takes O(n log k) time and O(k) memory rather than sorting the
+     * whole stream. The order of equal elements is unspecified. On a parallel stream each chunk is reduced to its own
+     * heap concurrently, and the heaps are then merged.
+     *
+     * @param k          the maximum number of elements to return
+     * @param comparator the comparator ordering the elements
+     * @return a list of at most k elements
+     * @throws IllegalArgumentException if k is negative
+     * @since 1.9.8
+     */
+    public List<T> top(final int k, final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "top requires a comparator");
+        if (k < 0) {
+            throw new IllegalArgumentException("top requires a non negative k");
+        }
+        final PriorityQueue<T> heap;
+        if (parallel) {
+            final List<PriorityQueue<T>> partials = evaluateChunks(new Function<Iterator<T>, PriorityQueue<T>>() {
+                @Override
+                public PriorityQueue<T> apply(Iterator<T> argument) {
+                    return top(newHeap(k, comparator), argument, k, comparator);
+                }
+            });
+            heap = newHeap(k, comparator);
+            for (PriorityQueue<T> partial : partials) {
+                top(heap, partial.iterator(), k, comparator);
+            }
+        } else {
+            heap = top(newHeap(k, comparator), iterator(), k, comparator);
+        }
+        final List<T> result = new ArrayList<T>(heap);
+        Collections.sort(result, Collections.reverseOrder(comparator));
+        return result;
     }
 
     /**
      * Creates a concatenated stream whose elements are all the elements of the first stream followed by all the elements of the second stream.
+     * The resultant stream is parallel if either of the streams is. Nested concatenations are flattened. Closing the
+     * resultant stream runs the close handlers of both streams.
      *
      * @param a   first stream
      * @param b   second stream
@@ -223,7 +1144,37 @@ public final class Stream<T> implements Closeable {
     @SuppressWarnings("unchecked")
     public static <T> Stream<T> concat(Stream<? extends T> a,
                                        Stream<? extends T> b) {
-        return new Stream(Iterators.concat(a.iterator, b.iterator));
+        final Pipeline<T> concatenated = Pipeline.of(Iterators.<T>concat(a.iterator(), b.iterator()));
+        final Set<Runnable> closeHandlers = new HashSet<Runnable>(a.closeHandlers);
+        closeHandlers.addAll(b.closeHandlers);
+        return new Stream<T>(a.pipeline.isSequential() || b.pipeline.isSequential() ? concatenated.sequential() : concatenated,
+                a.parallel || b.parallel, closeHandlers);
+    }
+
+    /**
+     * Creates a concatenated stream whose elements are all the elements of each of the streams in turn. The resultant
+     * stream is parallel if any of the streams is. Streams that are themselves concatenations are flattened rather
+     * than nested, so concatenating many streams, all at once or repeatedly, costs constant time per element. Closing
+     * the resultant stream runs the close handlers of all the streams.
+     *
+     * @param streams the streams to concatenate
+     * @param <T>     type of elements
+     * @return a stream concatenating the streams
+     * @since 1.9.8
+     */
+    public static <T> Stream<T> concat(Iterable<? extends Stream<? extends T>> streams) {
+        final List<Iterator<? extends T>> iterators = new ArrayList<Iterator<? extends T>>();
+        boolean parallel = false;
+        boolean sequential = false;
+        final Set<Runnable> closeHandlers = new HashSet<Runnable>();
+        for (Stream<? extends T> stream : streams) {
+            iterators.add(stream.iterator());
+            closeHandlers.addAll(stream.closeHandlers);
+            parallel = parallel || stream.parallel;
+            sequential = sequential || stream.pipeline.isSequential();
+        }
+        final Pipeline<T> concatenated = Pipeline.of(Iterators.<T>concat(iterators));
+        return new Stream<T>(sequential ? concatenated.sequential() : concatenated, parallel, closeHandlers);
     }
 
     /**
@@ -239,6 +1190,10 @@ public final class Stream<T> implements Closeable {
 
     @Override
     public void close() throws IOException {
+        close(closeHandlers);
+    }
+
+    static void close(Set<Runnable> closeHandlers) {
         for (Runnable runnable : closeHandlers) {
             try {
                 runnable.run();
@@ -247,4 +1202,96 @@ public final class Stream<T> implements Closeable {
             }
         }
     }
+
+    private static long count(Iterator<?> iterator) {
+        if (iterator instanceof SizedIterator && ((SizedIterator<?>) iterator).isExact()) {
+            return ((SizedIterator<?>) iterator).remaining();
+        }
+        long count = 0L;
+        while (iterator.hasNext()) {
+            count++;
+            iterator.next();
+        }
+        return count;
+    }
+
+    private static <T> Optional<T> max(Iterator<T> iterator, Comparator<? super T> comparator) {
+        if (!iterator.hasNext()) {
+            return Optional.<T>empty();
+        }
+        T max = iterator.next();
+        while (iterator.hasNext()) {
+            final T next = iterator.next();
+            if (comparator.compare(next, max) > 0) {
+                max = next;
+            }
+        }
+        return Optional.of(max);
+    }
+
+    private static <T> PriorityQueue<T> newHeap(int k, Comparator<? super T> comparator) {
+        return new PriorityQueue<T>(Math.max(1, Math.min(k, Pipeline.BATCH_SIZE)), comparator);
+    }
+
+    private static <T> PriorityQueue<T> top(PriorityQueue<T> heap, Iterator<T> iterator, int k,
+                                            Comparator<? super T> comparator) {
+        if (k == 0) {
+            return heap;
+        }
+        while (iterator.hasNext()) {
+            final T next = iterator.next();
+            if (heap.size() < k) {
+                heap.add(next);
+            } else if (comparator.compare(next, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(next);
+            }
+        }
+        return heap;
+    }
+
+    private static <T, K, R> Map<K, R> aggregate(Map<K, R> map, Iterator<T> iterator,
+                                                 Function<? super T, ? extends K> classifier, R initial,
+                                                 BiFunction<R, ? super T, R> accumulator) {
+        while (iterator.hasNext()) {
+            final T element = iterator.next();
+            final K key = classifier.apply(element);
+            final R accumulated = map.get(key);
+            map.put(key, accumulator.apply(accumulated == null ? initial : accumulated, element));
+        }
+        return map;
+    }
+
+    private static <T, A> A accumulate(Collector<? super T, A, ?> collector, A container, Iterator<T> iterator) {
+        A accumulated = container;
+        while (iterator.hasNext()) {
+            accumulated = collector.accumulate(accumulated, iterator.next());
+        }
+        return accumulated;
+    }
+
+    private <R> Stream<R> derive(Pipeline<R> derived) {
+        return new Stream<R>(derived, parallel, closeHandlers, profile);
+    }
+
+    private Stream<T> withProfile(StreamProfile replacement) {
+        return new Stream<T>(pipeline, parallel, closeHandlers, replacement);
+    }
+
+    private <R> List<R> evaluateChunks(Function<Iterator<T>, R> function) {
+        try {
+            return Iterators.parallelMap(pipeline.chunks(), function);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw Throwables.propagate(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+        }
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics recorded for the stages of a profiled stream. A profile is attached with {@link Stream#profile}, and each
+ * filter, map, flatMap, takeWhile and dropWhile stage added afterwards records the elements entering it, the
+ * elements leaving it, and the nanoseconds spent in its Function or Predicate. Streams that are not profiled add no
+ * per element overhead. When the stream is closed the stages are published to the profile's sink, if it has one.
+ *
+ * @since 1.9.8
+ */
+public final class StreamProfile {
+    private final List<Stage> stages = new CopyOnWriteArrayList<Stage>();
+    private final MetricsSink sink;
+
+    /**
+     * Create a profile without a sink, whose metrics are read from {@link #getStages()}.
+     */
+    public StreamProfile() {
+        this(null);
+    }
+
+    /**
+     * Create a profile publishing its metrics to a sink when the profiled stream is closed.
+     *
+     * @param sink the sink
+     */
+    public StreamProfile(final MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * The stages recorded, in the order they were added to the stream.
+     *
+     * @return the stages
+     */
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(new ArrayList<Stage>(stages));
+    }
+
+    /**
+     * Send the metrics of each stage to the sink, if there is one.
+     */
+    public void publish() {
+        if (sink != null) {
+            for (Stage stage : stages) {
+                sink.record(stage);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (Stage stage : stages) {
+            builder.append(stage).append('\n');
+        }
+        return builder.toString();
+    }
+
+    Stage stage(final String operation) {
+        final Stage stage = new Stage((stages.size() + 1) + ":" + operation);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * The metrics of one stage of a stream. Counts are updated atomically so that stages of parallel streams are
+     * recorded correctly.
+     */
+    public static final class Stage {
+        private final String name;
+        private final AtomicLong elementsIn = new AtomicLong();
+        private final AtomicLong elementsOut = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        private Stage(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * The name of the stage, its position in the stream followed by its operation, for example "2:map".
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The number of elements that entered the stage.
+         *
+         * @return the count
+         */
+        public long getElementsIn() {
+            return elementsIn.get();
+        }
+
+        /**
+         * The number of elements that left the stage.
+         *
+         * @return the count
+         */
+        public long getElementsOut() {
+            return elementsOut.get();
+        }
+
+        /**
+         * The cumulative nanoseconds spent in the stage's Function or Predicate.
+         *
+         * @return the nanoseconds
+         */
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return name + " in=" + elementsIn.get() + " out=" + elementsOut.get() + " nanos=" + nanos.get();
+        }
+
+        <T> Predicate<T> filter(final Predicate<? super T> predicate) {
+            return new Predicate<T>() {
+                @Override
+                public boolean test(T testValue) {
+                    elementsIn.incrementAndGet();
+                    final long start = System.nanoTime();
+                    final boolean result = predicate.test(testValue);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    if (result) {
+                        elementsOut.incrementAndGet();
+                    }
+                    return result;
+                }
+            };
+        }
+
+        <F, R> Function<F, R> map(final Function<? super F, ? extends R> function) {
+            return new Function<F, R>() {
+                @Override
+                public R apply(F argument) {
+                    elementsIn.incrementAndGet();
+                    final long start = System.nanoTime();
+                    final R result = function.apply(argument);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    elementsOut.incrementAndGet();
+                    return result;
+                }
+            };
+        }
+
+        <F, R> Function<F, R> timed(final Function<? super F, ? extends R> function) {
+            return new Function<F, R>() {
+                @Override
+                public R apply(F argument) {
+                    final long start = System.nanoTime();
+                    final R result = function.apply(argument);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return result;
+                }
+            };
+        }
+
+        <T> Predicate<T> timed(final Predicate<? super T> predicate) {
+            return new Predicate<T>() {
+                @Override
+                public boolean test(T testValue) {
+                    final long start = System.nanoTime();
+                    final boolean result = predicate.test(testValue);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return result;
+                }
+            };
+        }
+
+        <T> Function<T, T> entering() {
+            return new Function<T, T>() {
+                @Override
+                public T apply(T argument) {
+                    elementsIn.incrementAndGet();
+                    return argument;
+                }
+            };
+        }
+
+        <T> Function<T, T> leaving() {
+            return new Function<T, T>() {
+                @Override
+                public T apply(T argument) {
+                    elementsOut.incrementAndGet();
+                    return argument;
+                }
+            };
+        }
+    }
+}
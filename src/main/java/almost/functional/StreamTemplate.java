@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+package almost.functional;
+
+import almost.functional.utils.Compose;
+import almost.functional.utils.Iterators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static almost.functional.utils.Preconditions.checkNotNull;
+
+/**
+ * A reusable definition of Stream operations. A template is built once using the intermediate operations of Stream,
+ * and then applied to any number of sources, each application returning a new Stream ready for a terminal
+ * operation. The steps are compiled as the template is built, with adjacent filters and adjacent maps fused, so
+ * applying a template only wraps the source in the compiled stages. Templates are immutable, so each operation
+ * returns a new template, and a template may be shared between threads.
+ *
+ * @param <S> the type of the source elements
+ * @param <T> the type of the resulting stream's elements
+ * @since 1.9.8
+ */
+public final class StreamTemplate<S, T> {
+    private final List<Step<?, ?>> steps;
+    private final boolean parallel;
+    private final Step<Object, Object> head;
+    private final Step<Object, Object> tail;
+
+    private StreamTemplate(final List<Step<?, ?>> steps, final boolean parallel) {
+        this.steps = steps;
+        this.parallel = parallel;
+        int split = steps.size();
+        while (split > 0 && steps.get(split - 1).elementwise) {
+            split--;
+        }
+        head = compile(steps.subList(0, split));
+        tail = compile(steps.subList(split, steps.size()));
+    }
+
+    /**
+     * Create an empty template, which applied to a source returns a stream of the source's elements.
+     *
+     * @param <S> the type of the source elements
+     * @return a new template
+     */
+    public static <S> StreamTemplate<S, S> of() {
+        return new StreamTemplate<S, S>(Collections.<Step<?, ?>>emptyList(), false);
+    }
+
+    /**
+     * Apply this template to a source.
+     *
+     * @param source the source of the elements
+     * @return a new stream
+     */
+    public Stream<T> stream(final Iterable<S> source) {
+        return apply(Pipeline.of(source));
+    }
+
+    /**
+     * Apply this template to a source.
+     *
+     * @param source the source of the elements
+     * @return a new stream
+     */
+    public Stream<T> stream(final Iterator<S> source) {
+        return apply(Pipeline.of(source));
+    }
+
+    /**
+     * Returns a template whose streams are parallel. See {@link Stream#parallel()}.
+     *
+     * @return the new template
+     */
+    public StreamTemplate<S, T> parallel() {
+        return new StreamTemplate<S, T>(steps, true);
+    }
+
+    /**
+     * Returns a template whose streams are sequential. See {@link Stream#sequential()}.
+     *
+     * @return the new template
+     */
+    public StreamTemplate<S, T> sequential() {
+        return new StreamTemplate<S, T>(steps, false);
+    }
+
+    /**
+     * Add a filter. See {@link Stream#filter(Predicate)}.
+     *
+     * @param predicate to apply to each element to determine if it should be included
+     * @return the new template
+     */
+    public StreamTemplate<S, T> filter(final Predicate<? super T> predicate) {
+        checkNotNull(predicate, "filter requires a predicate");
+        return then(new FilterStep<T>(predicate));
+    }
+
+    /**
+     * Add a map. See {@link Stream#map(Function)}.
+     *
+     * @param mapper function to apply to each element
+     * @param <R>    the element type of the new template's streams
+     * @return the new template
+     */
+    public <R> StreamTemplate<S, R> map(final Function<? super T, ? extends R> mapper) {
+        checkNotNull(mapper, "map requires a mapper");
+        return then(new MapStep<T, R>(mapper));
+    }
+
+    /**
+     * Add a flat map. See {@link Stream#flatMap(Function)}.
+     *
+     * @param mapper function producing an Iterable for each element
+     * @param <R>    the element type of the new template's streams
+     * @return the new template
+     */
+    public <R> StreamTemplate<S, R> flatMap(final Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        checkNotNull(mapper, "flatMap requires a mapper");
+        return then(new Step<T, R>(true) {
+            @Override
+            Iterator<R> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.<T, R>flatMap(source, mapper);
+            }
+        });
+    }
+
+    /**
+     * Add a limit. See {@link Stream#limit(int)}.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the new template
+     */
+    public StreamTemplate<S, T> limit(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("limit requires a non negative size");
+        }
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.next(source, maxSize);
+            }
+        });
+    }
+
+    /**
+     * Add a skip. See {@link Stream#skip(long)}.
+     *
+     * @param n the number of leading elements to discard
+     * @return the new template
+     */
+    public StreamTemplate<S, T> skip(final long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("skip requires a non negative count");
+        }
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.skip(source, n);
+            }
+        });
+    }
+
+    /**
+     * Add a takeWhile. See {@link Stream#takeWhile(Predicate)}.
+     *
+     * @param predicate the predicate elements must match to be taken
+     * @return the new template
+     */
+    public StreamTemplate<S, T> takeWhile(final Predicate<? super T> predicate) {
+        checkNotNull(predicate, "takeWhile requires a predicate");
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.takeWhile(source, predicate);
+            }
+        });
+    }
+
+    /**
+     * Add a dropWhile. See {@link Stream#dropWhile(Predicate)}.
+     *
+     * @param predicate the predicate leading elements must match to be dropped
+     * @return the new template
+     */
+    public StreamTemplate<S, T> dropWhile(final Predicate<? super T> predicate) {
+        checkNotNull(predicate, "dropWhile requires a predicate");
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.dropWhile(source, predicate);
+            }
+        });
+    }
+
+    /**
+     * Add a distinct. See {@link Stream#distinct()}.
+     *
+     * @return the new template
+     */
+    public StreamTemplate<S, T> distinct() {
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                final OpenHashSet<T> seen = new OpenHashSet<T>(Iterators.sizeHint(source));
+                return Iterators.filter(source, new Predicate<T>() {
+                    @Override
+                    public boolean test(T testValue) {
+                        return seen.add(testValue);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Add a sort. See {@link Stream#sorted(Comparator)}.
+     *
+     * @param comparator the comparator ordering the elements
+     * @return the new template
+     */
+    public StreamTemplate<S, T> sorted(final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "sorted requires a comparator");
+        return then(new Step<T, T>(false) {
+            @Override
+            Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                final ExternalSortIterator<T> sorter = new ExternalSortIterator<T>(source, comparator,
+                        Stream.DEFAULT_SORT_BUDGET);
+                closeHandlers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        sorter.close();
+                    }
+                });
+                return sorter;
+            }
+        });
+    }
+
+    /**
+     * Add a chunking. See {@link Stream#chunked(int)}.
+     *
+     * @param size the number of elements per chunk
+     * @return the new template
+     */
+    public StreamTemplate<S, List<T>> chunked(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+        return then(new Step<T, List<T>>(false) {
+            @Override
+            Iterator<List<T>> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+                return Iterators.batch(source, size);
+            }
+        });
+    }
+
+    /**
+     * The number of compiled steps, after fusing adjacent filters and adjacent maps.
+     *
+     * @return the number of steps
+     */
+    int stages() {
+        return steps.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<T> apply(final Pipeline<S> source) {
+        final Set<Runnable> closeHandlers = new HashSet<Runnable>();
+        Pipeline<Object> pipeline = (Pipeline<Object>) source;
+        if (head != null) {
+            pipeline = pipeline.thenSequential(bind(head, closeHandlers));
+        }
+        if (tail != null) {
+            pipeline = pipeline.then(bind(tail, closeHandlers));
+        }
+        return new Stream<T>((Pipeline<T>) (Pipeline<?>) pipeline, parallel, closeHandlers);
+    }
+
+    private <R> StreamTemplate<S, R> then(final Step<?, ?> step) {
+        final List<Step<?, ?>> added = new ArrayList<Step<?, ?>>(steps.size() + 1);
+        added.addAll(steps);
+        final Step<?, ?> fused = added.isEmpty() ? null : added.get(added.size() - 1).fuse(step);
+        if (fused == null) {
+            added.add(step);
+        } else {
+            added.set(added.size() - 1, fused);
+        }
+        return new StreamTemplate<S, R>(Collections.unmodifiableList(added), parallel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Step<Object, Object> compile(final List<Step<?, ?>> steps) {
+        if (steps.isEmpty()) {
+            return null;
+        }
+        if (steps.size() == 1) {
+            return (Step<Object, Object>) steps.get(0);
+        }
+        final Step<Object, Object>[] chain = steps.toArray((Step<Object, Object>[]) new Step<?, ?>[steps.size()]);
+        return new Step<Object, Object>(false) {
+            @Override
+            Iterator<Object> apply(Iterator<Object> source, Set<Runnable> closeHandlers) {
+                Iterator<Object> iterator = source;
+                for (Step<Object, Object> step : chain) {
+                    iterator = step.apply(iterator, closeHandlers);
+                }
+                return iterator;
+            }
+        };
+    }
+
+    private static <F, T> Function<Iterator<F>, Iterator<T>> bind(final Step<F, T> step,
+                                                                   final Set<Runnable> closeHandlers) {
+        return new Function<Iterator<F>, Iterator<T>>() {
+            @Override
+            public Iterator<T> apply(Iterator<F> argument) {
+                return step.apply(argument, closeHandlers);
+            }
+        };
+    }
+
+    /**
+     * A step of a template. Elementwise steps treat each element independently, and are applied to each chunk of a
+     * parallel stream, while other steps are applied to the sequential traversal.
+     */
+    private abstract static class Step<F, T> {
+        private final boolean elementwise;
+
+        Step(final boolean elementwise) {
+            this.elementwise = elementwise;
+        }
+
+        abstract Iterator<T> apply(Iterator<F> source, Set<Runnable> closeHandlers);
+
+        Step<?, ?> fuse(Step<?, ?> next) {
+            return null;
+        }
+    }
+
+    private static final class FilterStep<T> extends Step<T, T> implements Predicate<T> {
+        private final Predicate<? super T>[] predicates;
+
+        @SuppressWarnings("unchecked")
+        FilterStep(final Predicate<? super T> predicate) {
+            this((Predicate<? super T>[]) new Predicate<?>[]{predicate});
+        }
+
+        private FilterStep(final Predicate<? super T>[] predicates) {
+            super(true);
+            this.predicates = predicates;
+        }
+
+        @Override
+        public boolean test(final T testValue) {
+            for (Predicate<? super T> predicate : predicates) {
+                if (!predicate.test(testValue)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        Iterator<T> apply(Iterator<T> source, Set<Runnable> closeHandlers) {
+            return Iterators.filter(source, this);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Step<?, ?> fuse(Step<?, ?> next) {
+            if (!(next instanceof FilterStep)) {
+                return null;
+            }
+            final Predicate<? super T>[] added = ((FilterStep<T>) next).predicates;
+            final Predicate<? super T>[] fused = Arrays.copyOf(predicates, predicates.length + added.length);
+            System.arraycopy(added, 0, fused, predicates.length, added.length);
+            return new FilterStep<T>(fused);
+        }
+    }
+
+    private static final class MapStep<F, T> extends Step<F, T> {
+        private final Function<? super F, ? extends T> mapper;
+
+        MapStep(final Function<? super F, ? extends T> mapper) {
+            super(true);
+            this.mapper = mapper;
+        }
+
+        @Override
+        Iterator<T> apply(Iterator<F> source, Set<Runnable> closeHandlers) {
+            return Iterators.map(source, mapper);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Step<?, ?> fuse(Step<?, ?> next) {
+            if (!(next instanceof MapStep)) {
+                return null;
+            }
+            return new MapStep<F, Object>(Compose.compose((Function<F, T>) mapper, ((MapStep<T, ?>) next).mapper));
+        }
+    }
+}
@@ -0,0 +1,767 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional.utils;
+
+import almost.functional.BiFunction;
+import almost.functional.Collector;
+import almost.functional.Function;
+import almost.functional.Optional;
+import almost.functional.Predicate;
+import almost.functional.ToDoubleFunction;
+import almost.functional.ToIntFunction;
+import almost.functional.ToLongFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static almost.functional.utils.Preconditions.checkNotNull;
+
+/**
+ * Implementations of Collector for common reductions. Where the number of elements is known the
+ * containers are allocated at their final size.
+ *
+ * @since 1.9.8
+ */
+public final class Collectors {
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int DEFAULT_HASH_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int DEFAULT_PRECISION = 14;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+
+    private Collectors() {
+    }
+
+    /**
+     * A Collector accumulating elements into a List.
+     *
+     * @param <T> the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, List<T>, List<T>> toList() {
+        return new Collector<T, List<T>, List<T>>() {
+            @Override
+            public List<T> supply(int sizeHint) {
+                return new ArrayList<T>(sizeHint > 0 ? sizeHint : DEFAULT_CAPACITY);
+            }
+
+            @Override
+            public List<T> accumulate(List<T> container, T element) {
+                container.add(element);
+                return container;
+            }
+
+            @Override
+            public List<T> combine(List<T> first, List<T> second) {
+                first.addAll(second);
+                return first;
+            }
+
+            @Override
+            public List<T> finish(List<T> container) {
+                return container;
+            }
+        };
+    }
+
+    /**
+     * A Collector accumulating elements into a Set.
+     *
+     * @param <T> the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, Set<T>, Set<T>> toSet() {
+        return new Collector<T, Set<T>, Set<T>>() {
+            @Override
+            public Set<T> supply(int sizeHint) {
+                return new HashSet<T>(hashCapacity(sizeHint));
+            }
+
+            @Override
+            public Set<T> accumulate(Set<T> container, T element) {
+                container.add(element);
+                return container;
+            }
+
+            @Override
+            public Set<T> combine(Set<T> first, Set<T> second) {
+                first.addAll(second);
+                return first;
+            }
+
+            @Override
+            public Set<T> finish(Set<T> container) {
+                return container;
+            }
+        };
+    }
+
+    /**
+     * A Collector accumulating elements into a Map, with keys and values produced by functions applied to the elements.
+     *
+     * @param keyMapper   function producing the keys
+     * @param valueMapper function producing the values
+     * @param <T>         the type of the elements
+     * @param <K>         the type of the keys
+     * @param <V>         the type of the values
+     * @return the collector
+     * @throws IllegalStateException on collection, if two elements map to the same key
+     */
+    public static <T, K, V> Collector<T, Map<K, V>, Map<K, V>> toMap(final Function<? super T, ? extends K> keyMapper,
+                                                                     final Function<? super T, ? extends V> valueMapper) {
+        checkNotNull(keyMapper, "toMap requires a key mapper");
+        checkNotNull(valueMapper, "toMap requires a value mapper");
+        return new Collector<T, Map<K, V>, Map<K, V>>() {
+            @Override
+            public Map<K, V> supply(int sizeHint) {
+                return new HashMap<K, V>(hashCapacity(sizeHint));
+            }
+
+            @Override
+            public Map<K, V> accumulate(Map<K, V> container, T element) {
+                putUnique(container, keyMapper.apply(element), valueMapper.apply(element));
+                return container;
+            }
+
+            @Override
+            public Map<K, V> combine(Map<K, V> first, Map<K, V> second) {
+                for (Map.Entry<K, V> entry : second.entrySet()) {
+                    putUnique(first, entry.getKey(), entry.getValue());
+                }
+                return first;
+            }
+
+            @Override
+            public Map<K, V> finish(Map<K, V> container) {
+                return container;
+            }
+        };
+    }
+
+    /**
+     * A Collector concatenating elements into a String.
+     *
+     * @return the collector
+     */
+    public static Collector<CharSequence, ?, String> joining() {
+        return joining("", "", "");
+    }
+
+    /**
+     * A Collector concatenating elements, separated by a delimiter, into a String.
+     *
+     * @param delimiter the delimiter between elements
+     * @return the collector
+     */
+    public static Collector<CharSequence, ?, String> joining(final CharSequence delimiter) {
+        return joining(delimiter, "", "");
+    }
+
+    /**
+     * A Collector concatenating elements, separated by a delimiter, and enclosed by a prefix and suffix, into a String.
+     *
+     * @param delimiter the delimiter between elements
+     * @param prefix    the start of the result
+     * @param suffix    the end of the result
+     * @return the collector
+     */
+    public static Collector<CharSequence, ?, String> joining(final CharSequence delimiter,
+                                                             final CharSequence prefix,
+                                                             final CharSequence suffix) {
+        checkNotNull(delimiter, "joining requires a delimiter");
+        checkNotNull(prefix, "joining requires a prefix");
+        checkNotNull(suffix, "joining requires a suffix");
+        return new Collector<CharSequence, Joiner, String>() {
+            @Override
+            public Joiner supply(int sizeHint) {
+                return new Joiner();
+            }
+
+            @Override
+            public Joiner accumulate(Joiner container, CharSequence element) {
+                container.add(delimiter, element);
+                return container;
+            }
+
+            @Override
+            public Joiner combine(Joiner first, Joiner second) {
+                if (!second.empty) {
+                    first.add(delimiter, second.builder);
+                }
+                return first;
+            }
+
+            @Override
+            public String finish(Joiner container) {
+                return new StringBuilder(prefix.length() + container.builder.length() + suffix.length())
+                        .append(prefix).append(container.builder).append(suffix).toString();
+            }
+        };
+    }
+
+    /**
+     * A Collector grouping elements into Lists, keyed by a classifier function.
+     *
+     * @param classifier function producing the keys
+     * @param <T>        the type of the elements
+     * @param <K>        the type of the keys
+     * @return the collector
+     */
+    public static <T, K> Collector<T, ?, Map<K, List<T>>> groupingBy(final Function<? super T, ? extends K> classifier) {
+        return groupingBy(classifier, Collectors.<T>toList());
+    }
+
+    /**
+     * A Collector grouping elements by a classifier function, and performing a downstream reduction on the elements
+     * of each group.
+     *
+     * @param classifier function producing the keys
+     * @param downstream the collector used for each group
+     * @param <T>        the type of the elements
+     * @param <K>        the type of the keys
+     * @param <A>        the container type of the downstream collector
+     * @param <D>        the result type of the downstream collector
+     * @return the collector
+     */
+    public static <T, K, A, D> Collector<T, ?, Map<K, D>> groupingBy(final Function<? super T, ? extends K> classifier,
+                                                                     final Collector<? super T, A, D> downstream) {
+        checkNotNull(classifier, "groupingBy requires a classifier");
+        checkNotNull(downstream, "groupingBy requires a downstream collector");
+        return grouping(classifier, downstream);
+    }
+
+    private static <T, K, A, D> Collector<T, Map<K, A>, Map<K, D>> grouping(final Function<? super T, ? extends K> classifier,
+                                                                            final Collector<? super T, A, D> downstream) {
+        return new Collector<T, Map<K, A>, Map<K, D>>() {
+            @Override
+            public Map<K, A> supply(int sizeHint) {
+                return new HashMap<K, A>();
+            }
+
+            @Override
+            public Map<K, A> accumulate(Map<K, A> container, T element) {
+                final K key = classifier.apply(element);
+                A group = container.get(key);
+                if (group == null) {
+                    group = downstream.supply(Collector.UNKNOWN_SIZE);
+                }
+                container.put(key, downstream.accumulate(group, element));
+                return container;
+            }
+
+            @Override
+            public Map<K, A> combine(Map<K, A> first, Map<K, A> second) {
+                for (Map.Entry<K, A> entry : second.entrySet()) {
+                    final A group = first.get(entry.getKey());
+                    first.put(entry.getKey(), group == null ? entry.getValue() : downstream.combine(group, entry.getValue()));
+                }
+                return first;
+            }
+
+            @Override
+            public Map<K, D> finish(Map<K, A> container) {
+                final Map<K, D> result = new HashMap<K, D>(hashCapacity(container.size()));
+                for (Map.Entry<K, A> entry : container.entrySet()) {
+                    result.put(entry.getKey(), downstream.finish(entry.getValue()));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * A Collector partitioning elements into Lists according to a predicate. The result always has entries
+     * for both true and false.
+     *
+     * @param predicate the predicate used to partition
+     * @param <T>       the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Map<Boolean, List<T>>> partitioningBy(final Predicate<? super T> predicate) {
+        return partitioningBy(predicate, Collectors.<T>toList());
+    }
+
+    /**
+     * A Collector partitioning elements according to a predicate, and performing a downstream reduction on the
+     * elements of each partition. The result always has entries for both true and false.
+     *
+     * @param predicate  the predicate used to partition
+     * @param downstream the collector used for each partition
+     * @param <T>        the type of the elements
+     * @param <A>        the container type of the downstream collector
+     * @param <D>        the result type of the downstream collector
+     * @return the collector
+     */
+    public static <T, A, D> Collector<T, ?, Map<Boolean, D>> partitioningBy(final Predicate<? super T> predicate,
+                                                                            final Collector<? super T, A, D> downstream) {
+        checkNotNull(predicate, "partitioningBy requires a predicate");
+        checkNotNull(downstream, "partitioningBy requires a downstream collector");
+        final Collector<T, Map<Boolean, A>, Map<Boolean, D>> grouping = grouping(new Function<T, Boolean>() {
+            @Override
+            public Boolean apply(T argument) {
+                return predicate.test(argument);
+            }
+        }, downstream);
+        return new Collector<T, Map<Boolean, A>, Map<Boolean, D>>() {
+            @Override
+            public Map<Boolean, A> supply(int sizeHint) {
+                final Map<Boolean, A> partitions = new HashMap<Boolean, A>(hashCapacity(2));
+                partitions.put(true, downstream.supply(Collector.UNKNOWN_SIZE));
+                partitions.put(false, downstream.supply(Collector.UNKNOWN_SIZE));
+                return partitions;
+            }
+
+            @Override
+            public Map<Boolean, A> accumulate(Map<Boolean, A> container, T element) {
+                return grouping.accumulate(container, element);
+            }
+
+            @Override
+            public Map<Boolean, A> combine(Map<Boolean, A> first, Map<Boolean, A> second) {
+                return grouping.combine(first, second);
+            }
+
+            @Override
+            public Map<Boolean, D> finish(Map<Boolean, A> container) {
+                return grouping.finish(container);
+            }
+        };
+    }
+
+    /**
+     * A Collector counting the elements.
+     *
+     * @param <T> the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Long> counting() {
+        return new Collector<T, long[], Long>() {
+            @Override
+            public long[] supply(int sizeHint) {
+                return new long[1];
+            }
+
+            @Override
+            public long[] accumulate(long[] container, T element) {
+                container[0]++;
+                return container;
+            }
+
+            @Override
+            public long[] combine(long[] first, long[] second) {
+                first[0] += second[0];
+                return first;
+            }
+
+            @Override
+            public Long finish(long[] container) {
+                return container[0];
+            }
+        };
+    }
+
+    /**
+     * A Collector summing an int valued function of the elements.
+     *
+     * @param mapper function producing the values to sum
+     * @param <T>    the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Integer> summingInt(final ToIntFunction<? super T> mapper) {
+        checkNotNull(mapper, "summingInt requires a mapper");
+        return new Collector<T, int[], Integer>() {
+            @Override
+            public int[] supply(int sizeHint) {
+                return new int[1];
+            }
+
+            @Override
+            public int[] accumulate(int[] container, T element) {
+                container[0] += mapper.applyAsInt(element);
+                return container;
+            }
+
+            @Override
+            public int[] combine(int[] first, int[] second) {
+                first[0] += second[0];
+                return first;
+            }
+
+            @Override
+            public Integer finish(int[] container) {
+                return container[0];
+            }
+        };
+    }
+
+    /**
+     * A Collector summing a long valued function of the elements.
+     *
+     * @param mapper function producing the values to sum
+     * @param <T>    the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Long> summingLong(final ToLongFunction<? super T> mapper) {
+        checkNotNull(mapper, "summingLong requires a mapper");
+        return new Collector<T, long[], Long>() {
+            @Override
+            public long[] supply(int sizeHint) {
+                return new long[1];
+            }
+
+            @Override
+            public long[] accumulate(long[] container, T element) {
+                container[0] += mapper.applyAsLong(element);
+                return container;
+            }
+
+            @Override
+            public long[] combine(long[] first, long[] second) {
+                first[0] += second[0];
+                return first;
+            }
+
+            @Override
+            public Long finish(long[] container) {
+                return container[0];
+            }
+        };
+    }
+
+    /**
+     * A Collector summing a double valued function of the elements.
+     *
+     * @param mapper function producing the values to sum
+     * @param <T>    the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Double> summingDouble(final ToDoubleFunction<? super T> mapper) {
+        checkNotNull(mapper, "summingDouble requires a mapper");
+        return new Collector<T, double[], Double>() {
+            @Override
+            public double[] supply(int sizeHint) {
+                return new double[1];
+            }
+
+            @Override
+            public double[] accumulate(double[] container, T element) {
+                container[0] += mapper.applyAsDouble(element);
+                return container;
+            }
+
+            @Override
+            public double[] combine(double[] first, double[] second) {
+                first[0] += second[0];
+                return first;
+            }
+
+            @Override
+            public Double finish(double[] container) {
+                return container[0];
+            }
+        };
+    }
+
+    /**
+     * A Collector finding the minimum element according to a comparator. Where several elements are equally minimal
+     * the first is retained.
+     *
+     * @param comparator the comparator ordering the elements
+     * @param <T>        the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Optional<T>> minBy(final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "minBy requires a comparator");
+        return maxBy(Collections.reverseOrder(comparator));
+    }
+
+    /**
+     * A Collector finding the maximum element according to a comparator. Where several elements are equally maximal
+     * the first is retained.
+     *
+     * @param comparator the comparator ordering the elements
+     * @param <T>        the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Optional<T>> maxBy(final Comparator<? super T> comparator) {
+        checkNotNull(comparator, "maxBy requires a comparator");
+        return new Collector<T, Extreme<T>, Optional<T>>() {
+            @Override
+            public Extreme<T> supply(int sizeHint) {
+                return new Extreme<T>();
+            }
+
+            @Override
+            public Extreme<T> accumulate(Extreme<T> container, T element) {
+                if (!container.present || comparator.compare(element, container.value) > 0) {
+                    container.value = element;
+                    container.present = true;
+                }
+                return container;
+            }
+
+            @Override
+            public Extreme<T> combine(Extreme<T> first, Extreme<T> second) {
+                return second.present ? accumulate(first, second.value) : first;
+            }
+
+            @Override
+            public Optional<T> finish(Extreme<T> container) {
+                return container.present ? Optional.of(container.value) : Optional.<T>empty();
+            }
+        };
+    }
+
+    /**
+     * A Collector estimating the number of distinct elements with a HyperLogLog sketch of 2^14 registers, giving a
+     * typical error under one percent in 16KB. See {@link #countingDistinctApprox(int)}.
+     *
+     * @param <T> the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, Long> countingDistinctApprox() {
+        return countingDistinctApprox(DEFAULT_PRECISION);
+    }
+
+    /**
+     * A Collector estimating the number of distinct elements with a HyperLogLog sketch. The sketch holds 2^precision
+     * one byte registers, and the typical relative error is 1.04 / sqrt(2^precision). Elements are distinguished by
+     * their {@link Hashing#hash(Object)}, so strings and whole numbers are told apart by value while other elements
+     * with equal hash codes are counted once.
+     *
+     * @param precision the number of bits of each hash used to choose a register, from 4 to 18
+     * @param <T>       the type of the elements
+     * @return the collector
+     * @throws IllegalArgumentException if the precision is out of range
+     */
+    public static <T> Collector<T, ?, Long> countingDistinctApprox(final int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be from " + MIN_PRECISION + " to " + MAX_PRECISION);
+        }
+        return new Collector<T, byte[], Long>() {
+            @Override
+            public byte[] supply(int sizeHint) {
+                return new byte[1 << precision];
+            }
+
+            @Override
+            public byte[] accumulate(byte[] container, T element) {
+                final long hash = Hashing.mix(Hashing.hash(element));
+                final int index = (int) (hash >>> (Long.SIZE - precision));
+                final byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+                if (rank > container[index]) {
+                    container[index] = rank;
+                }
+                return container;
+            }
+
+            @Override
+            public byte[] combine(byte[] first, byte[] second) {
+                for (int i = 0; i < first.length; i++) {
+                    if (second[i] > first[i]) {
+                        first[i] = second[i];
+                    }
+                }
+                return first;
+            }
+
+            @Override
+            public Long finish(byte[] container) {
+                final int registers = container.length;
+                double sum = 0.0;
+                int zeros = 0;
+                for (byte rank : container) {
+                    sum += 1.0 / (1L << rank);
+                    if (rank == 0) {
+                        zeros++;
+                    }
+                }
+                final double alpha = registers >= 128 ? 0.7213 / (1.0 + 1.079 / registers)
+                        : registers == 64 ? 0.709 : registers == 32 ? 0.697 : 0.673;
+                double estimate = alpha * registers * registers / sum;
+                if (estimate <= 2.5 * registers && zeros > 0) {
+                    estimate = registers * Math.log((double) registers / zeros);
+                }
+                return Math.round(estimate);
+            }
+        };
+    }
+
+    /**
+     * A Collector passing every element to two collectors in a single pass, and merging their results. This allows
+     * several aggregates of a stream to be computed without reading it twice.
+     *
+     * @param first  the first collector
+     * @param second the second collector
+     * @param merger function combining the two results
+     * @param <T>    the type of the elements
+     * @param <R1>   the result type of the first collector
+     * @param <R2>   the result type of the second collector
+     * @param <R>    the merged result type
+     * @return the collector
+     */
+    public static <T, R1, R2, R> Collector<T, ?, R> tee(final Collector<? super T, ?, R1> first,
+                                                       final Collector<? super T, ?, R2> second,
+                                                       final BiFunction<? super R1, ? super R2, R> merger) {
+        checkNotNull(merger, "tee requires a merger");
+        final Collector<T, Object, Object>[] tees = newTees(2);
+        tees[0] = teed(first);
+        tees[1] = teed(second);
+        final Collector<T, Object[], List<Object>> both = teeAll(tees);
+        return new Collector<T, Object[], R>() {
+            @Override
+            public Object[] supply(int sizeHint) {
+                return both.supply(sizeHint);
+            }
+
+            @Override
+            public Object[] accumulate(Object[] container, T element) {
+                return both.accumulate(container, element);
+            }
+
+            @Override
+            public Object[] combine(Object[] first, Object[] second) {
+                return both.combine(first, second);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public R finish(Object[] container) {
+                final List<Object> results = both.finish(container);
+                return merger.apply((R1) results.get(0), (R2) results.get(1));
+            }
+        };
+    }
+
+    /**
+     * A Collector passing every element to each of several collectors in a single pass. The result is a list of the
+     * collectors' results, in the order the collectors were given. This allows several aggregates of a stream, for
+     * example its count, sum, minimum, maximum and distinct count, to be computed without reading it repeatedly.
+     *
+     * @param collectors the collectors to pass the elements to
+     * @param <T>        the type of the elements
+     * @return the collector
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Collector<T, ?, List<Object>> tee(final Collector<? super T, ?, ?>... collectors) {
+        checkNotNull(collectors, "tee requires collectors");
+        return tee(Arrays.asList(collectors));
+    }
+
+    /**
+     * A Collector passing every element to each of a list of collectors in a single pass. The result is a list of the
+     * collectors' results, in the order of the given list. See {@link #tee(Collector[])}.
+     *
+     * @param collectors the collectors to pass the elements to
+     * @param <T>        the type of the elements
+     * @return the collector
+     */
+    public static <T> Collector<T, ?, List<Object>> tee(final List<? extends Collector<? super T, ?, ?>> collectors) {
+        checkNotNull(collectors, "tee requires collectors");
+        final Collector<T, Object, Object>[] tees = newTees(collectors.size());
+        for (int i = 0; i < tees.length; i++) {
+            tees[i] = teed(collectors.get(i));
+        }
+        return teeAll(tees);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Collector<T, Object, Object>[] newTees(int length) {
+        return (Collector<T, Object, Object>[]) new Collector<?, ?, ?>[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Collector<T, Object, Object> teed(Collector<? super T, ?, ?> collector) {
+        return (Collector<T, Object, Object>) checkNotNull(collector, "tee requires collectors");
+    }
+
+    private static <T> Collector<T, Object[], List<Object>> teeAll(final Collector<T, Object, Object>[] tees) {
+        return new Collector<T, Object[], List<Object>>() {
+            @Override
+            public Object[] supply(int sizeHint) {
+                final Object[] containers = new Object[tees.length];
+                for (int i = 0; i < tees.length; i++) {
+                    containers[i] = tees[i].supply(sizeHint);
+                }
+                return containers;
+            }
+
+            @Override
+            public Object[] accumulate(Object[] container, T element) {
+                for (int i = 0; i < tees.length; i++) {
+                    container[i] = tees[i].accumulate(container[i], element);
+                }
+                return container;
+            }
+
+            @Override
+            public Object[] combine(Object[] first, Object[] second) {
+                for (int i = 0; i < tees.length; i++) {
+                    first[i] = tees[i].combine(first[i], second[i]);
+                }
+                return first;
+            }
+
+            @Override
+            public List<Object> finish(Object[] container) {
+                final List<Object> results = new ArrayList<Object>(tees.length);
+                for (int i = 0; i < tees.length; i++) {
+                    results.add(tees[i].finish(container[i]));
+                }
+                return results;
+            }
+        };
+    }
+
+    private static int hashCapacity(int sizeHint) {
+        return sizeHint > 0 ? (int) (sizeHint / LOAD_FACTOR) + 1 : DEFAULT_HASH_CAPACITY;
+    }
+
+    private static <K, V> void putUnique(Map<K, V> map, K key, V value) {
+        if (map.containsKey(key)) {
+            throw new IllegalStateException("Duplicate key " + key);
+        }
+        map.put(key, value);
+    }
+
+    private static final class Extreme<T> {
+        private T value;
+        private boolean present;
+    }
+
+    private static final class Joiner {
+        private final StringBuilder builder = new StringBuilder();
+        private boolean empty = true;
+
+        private void add(CharSequence delimiter, CharSequence element) {
+            if (!empty) {
+                builder.append(delimiter);
+            }
+            builder.append(element);
+            empty = false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional.utils;
+
+/**
+ * 64 bit hashes for the probabilistic structures, so elements that share a 32 bit hashCode need not be confused.
+ *
+ * @since 1.9.8
+ */
+public final class Hashing {
+    private static final long INTEGER_TAG = 0x9e3779b97f4a7c15L;
+    private static final long SHORT_TAG = 0xc2b2ae3d27d4eb4fL;
+    private static final long BYTE_TAG = 0x165667b19e3779f9L;
+    private static final long OBJECT_TAG = 0x27d4eb2f165667c5L;
+    private static final long NULL_HASH = 0x85ebca77c2b2ae63L;
+
+    private Hashing() {
+    }
+
+    /**
+     * A 64 bit hash of an element. Strings are hashed over their characters, and Long, Integer, Short and Byte over
+     * their value and type, so equal values of different types differ. Other elements are hashed from their 32 bit
+     * hashCode, so any two such elements with equal hash codes hash equally. The hash is not well distributed in
+     * its bits, pass it through {@link #mix(long)} before taking bits from it.
+     *
+     * @param element the element, may be null
+     * @return the hash
+     */
+    public static long hash(final Object element) {
+        if (element instanceof String) {
+            final String chars = (String) element;
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < chars.length(); i++) {
+                h = (h ^ chars.charAt(i)) * 0x100000001b3L;
+            }
+            return h;
+        }
+        if (element instanceof Long) {
+            return (Long) element;
+        }
+        if (element instanceof Integer) {
+            return mix(((Integer) element) ^ INTEGER_TAG);
+        }
+        if (element instanceof Short) {
+            return mix(((Short) element) ^ SHORT_TAG);
+        }
+        if (element instanceof Byte) {
+            return mix(((Byte) element) ^ BYTE_TAG);
+        }
+        return element == null ? NULL_HASH : mix(element.hashCode() ^ OBJECT_TAG);
+    }
+
+    /**
+     * Spread the bits of a 64 bit hash, so each bit of the result depends on every bit of the input.
+     *
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    public static long mix(final long hash) {
+        long mixed = hash;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+}
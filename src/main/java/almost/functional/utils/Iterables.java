@@ -19,8 +19,13 @@ package almost.functional.utils;
 
 import almost.functional.*;
 
+import java.util.Collection;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
 
 import static almost.functional.Optional.of;
 import static almost.functional.utils.Preconditions.checkNotNull;
@@ -105,7 +110,9 @@ public final class Iterables {
     }
 
     /**
-     * Does an iterable contain a value as determined by Object.isEqual(Object, Object).
+     * Does an iterable contain a value as determined by Object.isEqual(Object, Object). Hash sets and lists are asked
+     * directly, as their contains is defined by equals, so hash sets are searched without a scan. Other collections,
+     * such as sorted or identity based sets, may use their own notion of equality and so are scanned.
      *
      * @param iterable the iterable
      * @param value    the value
@@ -113,6 +120,15 @@ public final class Iterables {
      * @return true if iterable contain a value as determined by Object.isEqual(Object, Object).
      */
     public static <T> boolean contains(final Iterable<T> iterable, final T value) {
+        if (iterable instanceof HashSet || iterable instanceof List) {
+            try {
+                return ((Collection<T>) iterable).contains(value);
+            } catch (NullPointerException e) {
+                // the list does not support null, fall back to a scan
+            } catch (ClassCastException e) {
+                // the list does not support this type, fall back to a scan
+            }
+        }
         return any(iterable, Predicates.isEqual(value));
     }
 
@@ -148,7 +164,33 @@ public final class Iterables {
     }
 
     /**
-     * Create an iterable that filters an existing iterable based on a predicate.
+     * Create an iterable that replaces each element of an existing iterable with the elements of an iterable produced by a
+     * function. Elements are produced lazily, with only one inner iterator open at a time.
+     *
+     * @param fromIterable the iterable to be transformed
+     * @param function     the function producing an iterable for each element
+     * @param <F>          the type of the original elements, and the argument to the function
+     * @param <T>          the type of the resulting elements
+     * @return an iterable of the elements of each produced iterable in turn
+     * @see Iterators#flatMap(Iterator, Function)
+     * @since 1.9.8
+     */
+    public static <F, T> Iterable<T> flatMap(final Iterable<F> fromIterable,
+                                             final Function<? super F, ? extends Iterable<? extends T>> function) {
+        checkNotNull(fromIterable, "iterable must be non null");
+        checkNotNull(function, "flatMap function must be non null");
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.flatMap(fromIterable.iterator(), function);
+            }
+        };
+    }
+
+    /**
+     * Create an iterable that filters an existing iterable based on a predicate. Each call to iterator() filters a
+     * new iterator of the existing iterable, so the result can be iterated repeatedly, and matching elements are held
+     * in a lookahead slot rather than wrapped.
      *
      * @param fromIterable Iterable being filtered
      * @param predicate    the predicate to base inclusion upon, true cases are included, false excluded
@@ -158,19 +200,12 @@ public final class Iterables {
     public static <T> Iterable<T> filter(final Iterable<T> fromIterable, final Predicate<? super T> predicate) {
         checkNotNull(fromIterable, "iterable must be non null");
         checkNotNull(predicate, "predicate must be non null");
-        return new SupplierIterable<T>(new Supplier<Optional<T>>() {
-            private final Iterator<T> fromIterator = fromIterable.iterator();
-
-            public Optional<T> get() {
-                while (fromIterator.hasNext()) {
-                    final T value = fromIterator.next();
-                    if (predicate.test(value)) {
-                        return of(value);
-                    }
-                }
-                return Optional.empty();
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.filter(fromIterable.iterator(), predicate);
             }
-        });
+        };
     }
 
     /**
@@ -198,9 +233,23 @@ public final class Iterables {
         };
     }
 
+    /**
+     * Convert a generator to an iterable. See {@link GeneratorIterable}.
+     *
+     * @param generator the generator of the elements
+     * @param <E>       type of the elements
+     * @return An Iterable
+     * @throws java.lang.IllegalArgumentException if generator is null
+     * @since 1.9.8
+     */
+    public static <E> Iterable<E> iterable(final Generator<E> generator) {
+        return new GeneratorIterable<E>(generator);
+    }
+
     /**
      * Return an optional of an element from a specified position in an iterable. If the position is out of bounds
-     * an empty optional is returned. Positions start at 0.
+     * an empty optional is returned. Positions start at 0. Random access lists and splittable iterables, such as
+     * ArrayIterable, are indexed directly, other collections are only iterated if the position is within their size.
      *
      * @param iterable the iterable
      * @param position the position
@@ -213,6 +262,17 @@ public final class Iterables {
         if (position < 0) {
             return Optional.empty();
         }
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            final List<E> list = (List<E>) iterable;
+            return position < list.size() ? of(list.get(position)) : Optional.<E>empty();
+        }
+        if (iterable instanceof SplittableIterable) {
+            final SplittableIterable<E> splittable = (SplittableIterable<E>) iterable;
+            return position < splittable.size() ? of(splittable.iterator(position, position + 1).next()) : Optional.<E>empty();
+        }
+        if (iterable instanceof Collection && position >= ((Collection<E>) iterable).size()) {
+            return Optional.empty();
+        }
 
         int iterablePosition = 0;
         for (E anIterable : iterable) {
@@ -226,7 +286,8 @@ public final class Iterables {
     }
 
     /**
-     * Return the last element of an iterable, or empty if the iterable is empty.
+     * Return the last element of an iterable, or empty if the iterable is empty. Lists, deques and splittable
+     * iterables, such as ArrayIterable, are read from the end rather than iterated.
      *
      * @param iterable the iterable
      * @param <E>      type of the iterable elements
@@ -234,6 +295,19 @@ public final class Iterables {
      */
     public static <E> Optional<E> last(final Iterable<E> iterable) {
         checkNotNull(iterable, "last requires a non null iterable");
+        if (iterable instanceof List) {
+            final List<E> list = (List<E>) iterable;
+            return list.isEmpty() ? Optional.<E>empty() : of(list.listIterator(list.size()).previous());
+        }
+        if (iterable instanceof Deque) {
+            final Deque<E> deque = (Deque<E>) iterable;
+            return deque.isEmpty() ? Optional.<E>empty() : of(deque.descendingIterator().next());
+        }
+        if (iterable instanceof SplittableIterable) {
+            final SplittableIterable<E> splittable = (SplittableIterable<E>) iterable;
+            final int size = splittable.size();
+            return size == 0 ? Optional.<E>empty() : of(splittable.iterator(size - 1, size).next());
+        }
         final Iterator<E> iterator = iterable.iterator();
         if (!iterator.hasNext()) {
             return Optional.empty();
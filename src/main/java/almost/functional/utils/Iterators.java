@@ -18,25 +18,77 @@
 package almost.functional.utils;
 
 
+import almost.functional.Collector;
 import almost.functional.Consumer;
+import almost.functional.Function;
 import almost.functional.ImmutableIterator;
+import almost.functional.Predicate;
+import almost.functional.SizedIterator;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static almost.functional.utils.Preconditions.checkNotNull;
 
 /**
  * Utility class for Iterators.
  */
 public final class Iterators {
-    private static final ExecutorService EXECUTOR_SERVICE =
-            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_IN_FLIGHT = 2 * PARALLELISM;
+    private static volatile ExecutorService executor;
+    private static volatile ExecutorService defaultExecutor;
 
     private Iterators() {
     }
 
+    /**
+     * The executor used by the parallel operations when none is given. Unless replaced with
+     * {@link #setExecutor(ExecutorService)} this is a fixed pool of daemon threads, one per processor, created on
+     * first use.
+     *
+     * @return the executor
+     * @since 1.9.8
+     */
+    public static ExecutorService getExecutor() {
+        final ExecutorService replacement = executor;
+        return replacement != null ? replacement : defaultExecutor();
+    }
+
+    /**
+     * Replace the executor used by the parallel operations when none is given, for example to share a pool with the
+     * rest of an application, or with {@link #workStealingExecutor()}. The replaced executor is not shut down.
+     *
+     * @param replacement the executor to use, or null to restore the default
+     * @since 1.9.8
+     */
+    public static void setExecutor(final ExecutorService replacement) {
+        executor = replacement;
+    }
+
+    /**
+     * A shared fork join pool, with one thread per processor, created on first use. Idle threads steal queued work
+     * from busy ones, so batches of uneven cost don't leave processors idle. Its threads are daemons. The pool
+     * requires Java 7, and is held apart so that the rest of this class still runs on Java 6, where this method
+     * throws NoClassDefFoundError.
+     *
+     * @return the work stealing executor
+     * @since 1.9.8
+     */
+    public static ExecutorService workStealingExecutor() {
+        return WorkStealing.POOL;
+    }
+
     /**
      * This returns an Iterator limited to no more then the next count elements. The original
      * iterator <b>is</b> advanced by the calls to next on the returned iterator.
@@ -53,11 +105,14 @@ public final class Iterators {
 
             @Override
             public boolean hasNext() {
-                return iterator.hasNext() && position < count;
+                return position < count && iterator.hasNext();
             }
 
             @Override
             public T next() {
+                if (position >= count) {
+                    throw new NoSuchElementException();
+                }
                 T next = iterator.next();
                 position++;
                 return next;
@@ -66,7 +121,347 @@ public final class Iterators {
     }
 
     /**
-     * Collect an iterator's elements into a List.
+     * Create an iterator that lazily replaces each element of another iterator with the elements of an Iterable
+     * produced by a function. Only one inner iterator is open at a time. When an inner iterator is exhausted, it, or
+     * the Iterable it came from, is closed if it is Closeable. A null Iterable is treated as empty.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param function the function producing an Iterable for each element
+     * @param <F>      the type of the original elements
+     * @param <T>      the type of the resulting elements
+     * @return an iterator of the elements of each Iterable in turn
+     * @since 1.9.8
+     */
+    public static <F, T> Iterator<T> flatMap(final Iterator<? extends F> iterator,
+                                             final Function<? super F, ? extends Iterable<? extends T>> function) {
+        return new ImmutableIterator<T>() {
+            private Iterator<? extends T> current;
+            private Closeable closeable;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    closeCurrent();
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    final Iterable<? extends T> iterable = function.apply(iterator.next());
+                    if (iterable != null) {
+                        current = iterable.iterator();
+                        if (iterable instanceof Closeable) {
+                            closeable = (Closeable) iterable;
+                        } else if (current instanceof Closeable) {
+                            closeable = (Closeable) current;
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            private void closeCurrent() {
+                current = null; //NOPMD
+                if (closeable != null) {
+                    final Closeable toClose = closeable;
+                    closeable = null; //NOPMD
+                    try {
+                        toClose.close();
+                    } catch (IOException e) {
+                        throw Throwables.propagate(e);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * This returns an Iterator that discards the first count elements of another iterator. The elements
+     * are discarded lazily, on the first call to hasNext or next.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param count    the number of elements to discard
+     * @param <T>      the element type
+     * @return an iterator of the remaining elements
+     * @since 1.9.8
+     */
+    public static <T> Iterator<T> skip(final Iterator<? extends T> iterator, final long count) {
+        return new ImmutableIterator<T>() {
+            private long skipped = 0L;
+
+            @Override
+            public boolean hasNext() {
+                skip();
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                skip();
+                return iterator.next();
+            }
+
+            private void skip() {
+                while (skipped < count && iterator.hasNext()) {
+                    iterator.next();
+                    skipped++;
+                }
+                skipped = count;
+            }
+        };
+    }
+
+    /**
+     * This returns an Iterator of the elements of another iterator up until, but not including, the first
+     * element that does not match a predicate. No further elements are drawn after the first failed match.
+     *
+     * @param iterator  the iterator to draw elements from
+     * @param predicate the predicate elements must match
+     * @param <T>       the element type
+     * @return an iterator of the leading matching elements
+     * @since 1.9.8
+     */
+    public static <T> Iterator<T> takeWhile(final Iterator<? extends T> iterator, final Predicate<? super T> predicate) {
+        return new ImmutableIterator<T>() {
+            private T lookAhead;
+            private boolean ready;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready && !done && iterator.hasNext()) {
+                    final T element = iterator.next();
+                    if (predicate.test(element)) {
+                        lookAhead = element;
+                        ready = true;
+                    } else {
+                        done = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final T element = lookAhead;
+                lookAhead = null; //NOPMD
+                ready = false;
+                return element;
+            }
+        };
+    }
+
+    /**
+     * This returns an Iterator that discards the elements of another iterator while they match a predicate, and
+     * then returns every remaining element, starting with the first that did not match.
+     *
+     * @param iterator  the iterator to draw elements from
+     * @param predicate the predicate for elements to discard
+     * @param <T>       the element type
+     * @return an iterator of the elements after the leading matches
+     * @since 1.9.8
+     */
+    public static <T> Iterator<T> dropWhile(final Iterator<? extends T> iterator, final Predicate<? super T> predicate) {
+        return new ImmutableIterator<T>() {
+            private T lookAhead;
+            private boolean ready;
+            private boolean dropping = true;
+
+            @Override
+            public boolean hasNext() {
+                while (dropping && iterator.hasNext()) {
+                    final T element = iterator.next();
+                    if (!predicate.test(element)) {
+                        lookAhead = element;
+                        ready = true;
+                        dropping = false;
+                    }
+                }
+                dropping = false;
+                return ready || iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (ready) {
+                    final T element = lookAhead;
+                    lookAhead = null; //NOPMD
+                    ready = false;
+                    return element;
+                }
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Create an iterator that lazily filters another iterator based on a predicate. Elements are drawn
+     * from the original iterator only as needed, holding at most a single element of look ahead.
+     *
+     * @param iterator  the iterator to draw elements from
+     * @param predicate the predicate to base inclusion upon, true cases are included, false excluded
+     * @param <T>       the element type
+     * @return an iterator of the matching elements
+     * @since 1.9.8
+     */
+    public static <T> Iterator<T> filter(final Iterator<? extends T> iterator, final Predicate<? super T> predicate) {
+        return new ImmutableIterator<T>() {
+            private T lookAhead;
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    final T element = iterator.next();
+                    if (predicate.test(element)) {
+                        lookAhead = element;
+                        ready = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final T element = lookAhead;
+                lookAhead = null; //NOPMD
+                ready = false;
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Create an iterator that lazily applies a function to each element of another iterator. If the original
+     * iterator is a SizedIterator the result is as well.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param function the function to apply to the elements
+     * @param <F>      the type of the original elements
+     * @param <T>      the type of the resulting elements
+     * @return an iterator of the mapped elements
+     * @since 1.9.8
+     */
+    public static <F, T> Iterator<T> map(final Iterator<? extends F> iterator, final Function<? super F, ? extends T> function) {
+        if (iterator instanceof SizedIterator) {
+            final SizedIterator<? extends F> sized = (SizedIterator<? extends F>) iterator;
+            return new SizedImmutableIterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return sized.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return function.apply(sized.next());
+                }
+
+                @Override
+                public long remaining() {
+                    return sized.remaining();
+                }
+
+                @Override
+                public boolean isExact() {
+                    return sized.isExact();
+                }
+            };
+        }
+        return new ImmutableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return function.apply(iterator.next());
+            }
+        };
+    }
+
+    /**
+     * Wrap an iterator of a known number of elements as a SizedIterator.
+     *
+     * @param iterator the iterator
+     * @param size     the exact number of elements the iterator will return
+     * @param <T>      the element type
+     * @return a SizedIterator
+     * @since 1.9.8
+     */
+    public static <T> SizedIterator<T> sized(final Iterator<? extends T> iterator, final long size) {
+        return new SizedImmutableIterator<T>() {
+            private long remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                final T next = iterator.next();
+                remaining--;
+                return next;
+            }
+
+            @Override
+            public long remaining() {
+                return remaining;
+            }
+
+            @Override
+            public boolean isExact() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Create a SizedIterator over the elements of a collection.
+     *
+     * @param collection the collection
+     * @param <T>        the element type
+     * @return a SizedIterator
+     * @since 1.9.8
+     */
+    public static <T> SizedIterator<T> sized(final Collection<? extends T> collection) {
+        return sized(collection.iterator(), collection.size());
+    }
+
+    /**
+     * The number of elements expected to remain in an iterator, for use in sizing containers.
+     *
+     * @param iterator the iterator
+     * @return the exact or estimated remaining elements of a SizedIterator, capped at Integer.MAX_VALUE, or
+     * Collector.UNKNOWN_SIZE for other iterators
+     * @since 1.9.8
+     */
+    public static int sizeHint(final Iterator<?> iterator) {
+        if (iterator instanceof SizedIterator) {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, ((SizedIterator<?>) iterator).remaining()));
+        }
+        return Collector.UNKNOWN_SIZE;
+    }
+
+    /**
+     * Collect an iterator's elements into a List. If the iterator is a SizedIterator the list is allocated
+     * at the expected size.
      *
      * @param iterator the iterator
      * @param <T>      the element type
@@ -74,7 +469,8 @@ public final class Iterators {
      * @since 1.9.3
      */
     public static <T> List<T> collect(Iterator<T> iterator) {
-        List<T> list = new ArrayList<T>();
+        final int sizeHint = sizeHint(iterator);
+        List<T> list = sizeHint > 0 ? new ArrayList<T>(sizeHint) : new ArrayList<T>();
         while (iterator.hasNext()) {
             list.add(iterator.next());
         }
@@ -82,7 +478,234 @@ public final class Iterators {
     }
 
     /**
-     * Break an iterator's elements into batches, and invoke the consumer on these batches in a thread pool.
+     * Create an iterator over batches of another iterator's elements. Each batch is collected from the original
+     * iterator when it is returned by next.
+     *
+     * @param iterator  the iterator to draw elements from
+     * @param batchSize the maximum number of elements per batch
+     * @param <T>       the element type
+     * @return an iterator of batches
+     * @since 1.9.8
+     */
+    public static <T> Iterator<List<T>> batch(final Iterator<? extends T> iterator, final int batchSize) {
+        return batch(iterator, batchSize, false);
+    }
+
+    /**
+     * Create an iterator over batches of another iterator's elements. Each batch is collected from the original
+     * iterator when it is returned by next. If reuse is requested a single list is refilled for every batch, and
+     * a batch is only valid until the next call to hasNext or next.
+     *
+     * @param iterator  the iterator to draw elements from
+     * @param batchSize the maximum number of elements per batch
+     * @param reuse     whether to refill one list rather than allocating one per batch
+     * @param <T>       the element type
+     * @return an iterator of batches
+     * @since 1.9.8
+     */
+    public static <T> Iterator<List<T>> batch(final Iterator<? extends T> iterator, final int batchSize,
+                                              final boolean reuse) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        return new ImmutableIterator<List<T>>() {
+            private final List<T> buffer = reuse ? new ArrayList<T>(batchSize) : null;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final List<T> list;
+                if (reuse) {
+                    list = buffer;
+                    list.clear();
+                } else {
+                    list = new ArrayList<T>(batchSize);
+                }
+                while (list.size() < batchSize && iterator.hasNext()) {
+                    list.add(iterator.next());
+                }
+                return list;
+            }
+        };
+    }
+
+    /**
+     * Create an iterator over sliding windows of another iterator's elements. Each window holds size elements and
+     * starts step elements after the previous one, so windows overlap when step is less than size and elements are
+     * skipped when it is greater. Only complete windows are returned. If reuse is requested a single list is shifted
+     * and refilled for every window, and a window is only valid until the next call to hasNext or next.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param size     the number of elements per window
+     * @param step     the distance between the starts of consecutive windows
+     * @param reuse    whether to refill one list rather than allocating one per window
+     * @param <T>      the element type
+     * @return an iterator of windows
+     * @since 1.9.8
+     */
+    public static <T> Iterator<List<T>> sliding(final Iterator<? extends T> iterator, final int size, final int step,
+                                                final boolean reuse) {
+        if (size < 1 || step < 1) {
+            throw new IllegalArgumentException("window size and step must be positive");
+        }
+        return new ImmutableIterator<List<T>>() {
+            private List<T> previous;
+            private List<T> window;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (window == null && !done) {
+                    window = advance();
+                    done = window == null;
+                }
+                return window != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                previous = window;
+                window = null;
+                return previous;
+            }
+
+            private List<T> advance() {
+                final List<T> list;
+                if (previous == null) {
+                    list = new ArrayList<T>(size);
+                } else if (step < size) {
+                    if (reuse) {
+                        list = previous;
+                        list.subList(0, step).clear();
+                    } else {
+                        list = new ArrayList<T>(size);
+                        list.addAll(previous.subList(step, size));
+                    }
+                } else {
+                    if (reuse) {
+                        list = previous;
+                        list.clear();
+                    } else {
+                        list = new ArrayList<T>(size);
+                    }
+                    for (int i = size; i < step && iterator.hasNext(); i++) {
+                        iterator.next();
+                    }
+                }
+                while (list.size() < size && iterator.hasNext()) {
+                    list.add(iterator.next());
+                }
+                return list.size() == size ? list : null;
+            }
+        };
+    }
+
+    /**
+     * Apply a function to each of an iterator's elements in a thread pool, returning the results in the order of the
+     * original elements. The iterator is drawn upon by the calling thread, and at most twice as many elements as there
+     * are processors are held awaiting the function at once, see {@link #parallelMap(Iterator, Function, int, Executor)}.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param function the function to apply to each element
+     * @param <F>      the element type
+     * @param <R>      the result type
+     * @return a List of the results
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @since 1.9.8
+     */
+    public static <F, R> List<R> parallelMap(final Iterator<? extends F> iterator,
+                                             final Function<? super F, ? extends R> function)
+            throws InterruptedException, ExecutionException {
+        return parallelMap(iterator, function, getExecutor());
+    }
+
+    /**
+     * Apply a function to each of an iterator's elements using the given executor, returning the results in the
+     * order of the original elements. The iterator is drawn upon by the calling thread, and at most twice as many
+     * elements as there are processors are held awaiting the function at once.
+     *
+     * @param iterator the iterator to draw elements from
+     * @param function the function to apply to each element
+     * @param executor the executor to apply the function on
+     * @param <F>      the element type
+     * @param <R>      the result type
+     * @return a List of the results
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @since 1.9.8
+     */
+    public static <F, R> List<R> parallelMap(final Iterator<? extends F> iterator,
+                                             final Function<? super F, ? extends R> function,
+                                             final ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        return parallelMap(iterator, function, DEFAULT_IN_FLIGHT, executor);
+    }
+
+    /**
+     * Apply a function to each of an iterator's elements using the given executor, returning the results in the
+     * order of the original elements. Each element is submitted as soon as it is drawn, and once maxInFlight are
+     * outstanding the calling thread completes the oldest before drawing another. The elements held at once are
+     * therefore bounded by maxInFlight rather than by the size of the iterator, while the results are kept in
+     * encounter order. The first failure found is thrown, and no further elements are drawn. Rather than wait for an
+     * element no worker has started, the calling thread applies the function itself, so a caller that is itself a
+     * worker of the executor, as with nested parallel streams, never waits on work queued behind it.
+     *
+     * @param iterator    the iterator to draw elements from
+     * @param function    the function to apply to each element
+     * @param maxInFlight the maximum number of elements submitted but not completed
+     * @param executor    the executor to apply the function on
+     * @param <F>         the element type
+     * @param <R>         the result type
+     * @return a List of the results
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @since 1.9.8
+     */
+    public static <F, R> List<R> parallelMap(final Iterator<? extends F> iterator,
+                                             final Function<? super F, ? extends R> function,
+                                             int maxInFlight, Executor executor)
+            throws InterruptedException, ExecutionException {
+        checkNotNull(executor, "parallelMap requires an executor");
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("max in flight elements must be positive");
+        }
+        final Queue<FutureTask<R>> outstanding = new ArrayDeque<FutureTask<R>>(maxInFlight);
+        final List<R> results = new ArrayList<R>();
+        while (iterator.hasNext()) {
+            if (outstanding.size() == maxInFlight) {
+                results.add(complete(outstanding.poll()));
+            }
+            final F element = iterator.next();
+            final FutureTask<R> task = new FutureTask<R>(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    return function.apply(element);
+                }
+            });
+            executor.execute(task);
+            outstanding.add(task);
+        }
+        while (!outstanding.isEmpty()) {
+            results.add(complete(outstanding.poll()));
+        }
+        return results;
+    }
+
+    /**
+     * Break an iterator's elements into batches, and invoke the consumer on these batches in a thread pool. At most
+     * twice as many batches as there are processors are held at once, see
+     * {@link #parallelBatch(Iterator, Consumer, int, int)}.
      *
      * @param iterator  the iterator to draw elements from
      * @param consumer  the Consumer to use the batches
@@ -95,56 +718,227 @@ public final class Iterators {
     public static <T> void parallelBatch(Iterator<? extends T> iterator,
                                          final Consumer<Iterator<? extends T>> consumer,
                                          int batchSize) throws InterruptedException, ExecutionException {
-        List<Callable<Boolean>> callables = new ArrayList<Callable<Boolean>>();
-        while (iterator.hasNext()) {
-            Iterator<T> i = next(iterator, batchSize);
-            final List<T> list = collect(i);
-            callables.add(new Callable<Boolean>() {
+        parallelBatch(iterator, consumer, batchSize, DEFAULT_IN_FLIGHT);
+    }
+
+    /**
+     * Break an iterator's elements into batches, and invoke the consumer on these batches in a thread pool. Each
+     * batch is submitted as soon as it is cut, and once maxInFlight batches are outstanding the calling thread waits
+     * for one to complete before cutting another. Memory is therefore bounded by maxInFlight times batchSize elements
+     * rather than by the size of the iterator. The first failure found is thrown, and no further batches are cut.
+     *
+     * @param iterator    the iterator to draw elements from
+     * @param consumer    the Consumer to use the batches
+     * @param batchSize   the maximum number of elements per batch
+     * @param maxInFlight the maximum number of batches submitted but not completed
+     * @param <T>         the element type
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @since 1.9.8
+     */
+    public static <T> void parallelBatch(Iterator<? extends T> iterator,
+                                         final Consumer<Iterator<? extends T>> consumer,
+                                         int batchSize, int maxInFlight) throws InterruptedException, ExecutionException {
+        parallelBatch(iterator, consumer, batchSize, maxInFlight, getExecutor());
+    }
+
+    /**
+     * Break an iterator's elements into batches, and invoke the consumer on these batches using the given executor,
+     * with at most maxInFlight batches outstanding. See {@link #parallelBatch(Iterator, Consumer, int, int)}. Rather
+     * than wait for a batch no worker has started, the calling thread consumes it itself, so a caller that is itself a
+     * worker of the executor never waits on work queued behind it.
+     *
+     * @param iterator    the iterator to draw elements from
+     * @param consumer    the Consumer to use the batches
+     * @param batchSize   the maximum number of elements per batch
+     * @param maxInFlight the maximum number of batches submitted but not completed
+     * @param executor    the executor to invoke the consumer on
+     * @param <T>         the element type
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @since 1.9.8
+     */
+    public static <T> void parallelBatch(Iterator<? extends T> iterator,
+                                         final Consumer<Iterator<? extends T>> consumer,
+                                         int batchSize, int maxInFlight, Executor executor)
+            throws InterruptedException, ExecutionException {
+        checkNotNull(executor, "parallelBatch requires an executor");
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("max in flight batches must be positive");
+        }
+        final Queue<FutureTask<Boolean>> outstanding = new ArrayDeque<FutureTask<Boolean>>(maxInFlight);
+        final Iterator<List<T>> batches = batch(iterator, batchSize);
+        while (batches.hasNext()) {
+            if (outstanding.size() == maxInFlight) {
+                complete(outstanding.poll());
+            }
+            final List<T> list = batches.next();
+            final FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
                 @Override
                 public Boolean call() throws Exception {
                     consumer.accept(list.iterator());
                     return true;
                 }
             });
+            executor.execute(task);
+            outstanding.add(task);
         }
-        List<Future<Boolean>> futures = EXECUTOR_SERVICE.invokeAll(callables);
-        for (Future<Boolean> future : futures) {
-            future.get();
+        while (!outstanding.isEmpty()) {
+            complete(outstanding.poll());
         }
     }
 
     /**
-     * Create an iterator which sequentially iterates over a collection of iterators.
+     * Create an iterator which sequentially iterates over a collection of iterators. If all the iterators are
+     * SizedIterators the result is as well. Iterators that were themselves created by concat are flattened into the
+     * new iterator rather than nested within it, so repeated concatenation costs constant time per element. The
+     * sources of the largest nested concatenation are taken over rather than copied, so building a concatenation
+     * one iterator at a time costs constant time per iterator. Nested concatenations are left empty.
      *
      * @param iterators the iterators to iterate
      * @param <T>       the element type
      * @return the new iterator
      */
     public static <T> Iterator<T> concat(final Iterator<? extends T>... iterators) {
-        return new ImmutableIterator<T>() {
-            int current = 0;
+        return concat(Arrays.asList(iterators));
+    }
 
-            @Override
-            public boolean hasNext() {
-                advance();
-                return current < iterators.length;
+    /**
+     * Create an iterator which sequentially iterates over a collection of iterators. See {@link #concat(Iterator[])}.
+     *
+     * @param iterators the iterators to iterate
+     * @param <T>       the element type
+     * @return the new iterator
+     * @since 1.9.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Iterator<T> concat(final Iterable<? extends Iterator<? extends T>> iterators) {
+        final List<Iterator<? extends T>> inputs = new ArrayList<Iterator<? extends T>>();
+        boolean sized = true;
+        int largest = -1;
+        for (Iterator<? extends T> iterator : iterators) {
+            checkNotNull(iterator, "concat requires iterators");
+            if (iterator instanceof ConcatIterator && (largest < 0
+                    || ((ConcatIterator<?>) iterator).sources.size() > ((ConcatIterator<?>) inputs.get(largest)).sources.size())) {
+                largest = inputs.size();
+            }
+            sized = sized && iterator instanceof SizedIterator;
+            inputs.add(iterator);
+        }
+        final ArrayDeque<Iterator<? extends T>> sources;
+        if (largest < 0) {
+            sources = new ArrayDeque<Iterator<? extends T>>(inputs);
+        } else {
+            sources = ((ConcatIterator<T>) inputs.get(largest)).release();
+            for (int i = largest - 1; i >= 0; i--) {
+                if (inputs.get(i) instanceof ConcatIterator) {
+                    final Iterator<Iterator<? extends T>> nested = ((ConcatIterator<T>) inputs.get(i)).release().descendingIterator();
+                    while (nested.hasNext()) {
+                        sources.addFirst(nested.next());
+                    }
+                } else {
+                    sources.addFirst(inputs.get(i));
+                }
+            }
+            for (int i = largest + 1; i < inputs.size(); i++) {
+                if (inputs.get(i) instanceof ConcatIterator) {
+                    sources.addAll(((ConcatIterator<T>) inputs.get(i)).release());
+                } else {
+                    sources.addLast(inputs.get(i));
+                }
             }
+        }
+        return sized ? new SizedConcatIterator<T>(sources) : new ConcatIterator<T>(sources);
+    }
 
-            @Override
-            public T next() {
-                advance();
-                try {
-                    return iterators[current].next();
-                } catch (ArrayIndexOutOfBoundsException e) {
-                    throw new NoSuchElementException();
+    private static class ConcatIterator<T> extends ImmutableIterator<T> {
+        ArrayDeque<Iterator<? extends T>> sources;
+
+        ConcatIterator(final ArrayDeque<Iterator<? extends T>> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!sources.isEmpty() && !sources.peekFirst().hasNext()) {
+                sources.pollFirst();
+            }
+            return !sources.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return sources.peekFirst().next();
+        }
+
+        ArrayDeque<Iterator<? extends T>> release() {
+            final ArrayDeque<Iterator<? extends T>> released = sources;
+            sources = new ArrayDeque<Iterator<? extends T>>(1);
+            return released;
+        }
+    }
+
+    private static final class SizedConcatIterator<T> extends ConcatIterator<T> implements SizedIterator<T> {
+        SizedConcatIterator(final ArrayDeque<Iterator<? extends T>> sources) {
+            super(sources);
+        }
+
+        @Override
+        public long remaining() {
+            long remaining = 0L;
+            for (Iterator<? extends T> source : sources) {
+                remaining += ((SizedIterator<? extends T>) source).remaining();
+            }
+            return remaining;
+        }
+
+        @Override
+        public boolean isExact() {
+            for (Iterator<? extends T> source : sources) {
+                if (!((SizedIterator<? extends T>) source).isExact()) {
+                    return false;
                 }
             }
+            return true;
+        }
+    }
+
+    /**
+     * Run a submitted task on the calling thread unless a worker has already started it, then wait for its result.
+     * Any wait is therefore only on a task that is running.
+     */
+    private static <R> R complete(final FutureTask<R> task) throws InterruptedException, ExecutionException {
+        task.run();
+        return task.get();
+    }
 
-            private void advance() {
-                while (current < iterators.length && !iterators[current].hasNext()) {
-                    current++;
+    private static ExecutorService defaultExecutor() {
+        if (defaultExecutor == null) {
+            synchronized (Iterators.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger(0);
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "almost-functional-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
                 }
             }
-        };
+        }
+        return defaultExecutor;
+    }
+
+    private static final class WorkStealing {
+        private static final ExecutorService POOL = new ForkJoinPool(PARALLELISM);
+    }
+
+    private abstract static class SizedImmutableIterator<T> extends ImmutableIterator<T> implements SizedIterator<T> {
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class AsyncMapIteratorTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldKeepOrder() throws Exception {
+        Iterator<Integer> mapped = new AsyncMapIterator<Integer, Integer>(Arrays.asList(30, 1, 20, 2).iterator(),
+                sleeping(), 4, executor, true);
+
+        assertThat(drain(mapped)).containsExactly(30, 1, 20, 2);
+    }
+
+    @Test
+    public void shouldReturnInCompletionOrder() throws Exception {
+        Iterator<Integer> mapped = new AsyncMapIterator<Integer, Integer>(Arrays.asList(200, 1).iterator(),
+                sleeping(), 2, executor, false);
+
+        assertThat(drain(mapped)).containsExactly(1, 200);
+    }
+
+    @Test
+    public void shouldBoundConcurrency() throws Exception {
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger peak = new AtomicInteger(0);
+        List<Integer> source = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            source.add(i);
+        }
+        Iterator<Integer> mapped = new AsyncMapIterator<Integer, Integer>(source.iterator(), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                int now = running.incrementAndGet();
+                while (peak.get() < now && !peak.compareAndSet(peak.get(), now)) {
+                    Thread.yield();
+                }
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return argument;
+            }
+        }, 2, executor, true);
+
+        assertThat(drain(mapped)).isEqualTo(source);
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void shouldOverlapCalls() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Iterator<Integer> mapped = new AsyncMapIterator<Integer, Integer>(Arrays.asList(1, 2).iterator(), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                latch.countDown();
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return argument;
+            }
+        }, 2, executor, true);
+
+        assertThat(mapped.next()).isEqualTo(1);
+        assertThat(latch.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldPropagateException() throws Exception {
+        Iterator<Integer> mapped = new AsyncMapIterator<Integer, Integer>(Arrays.asList(1, 0, 2).iterator(), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                return 10 / argument;
+            }
+        }, 2, executor, true);
+
+        assertThat(mapped.next()).isEqualTo(10);
+        try {
+            mapped.next();
+            fail("expected exception");
+        } catch (ArithmeticException e) {
+            assertThat(e).isNotNull();
+        }
+    }
+
+    @Test(timeout = 5000, expected = StackOverflowError.class)
+    public void shouldPropagateErrorInOrder() throws Exception {
+        drain(new AsyncMapIterator<Integer, Integer>(Arrays.asList(1, 2, 3).iterator(), failing(), 2, executor, true));
+    }
+
+    @Test(timeout = 5000, expected = StackOverflowError.class)
+    public void shouldPropagateErrorInCompletionOrder() throws Exception {
+        drain(new AsyncMapIterator<Integer, Integer>(Arrays.asList(1, 2, 3).iterator(), failing(), 2, executor, false));
+    }
+
+    private static Function<Integer, Integer> failing() {
+        return new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                if (argument == 2) {
+                    throw new StackOverflowError("failed element");
+                }
+                return argument;
+            }
+        };
+    }
+
+    private static Function<Integer, Integer> sleeping() {
+        return new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                try {
+                    Thread.sleep(argument);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return argument;
+            }
+        };
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> list = new ArrayList<T>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    public void shouldHaveNoFalseNegatives() throws Exception {
+        BloomFilter<Integer> filter = new BloomFilter<Integer>(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.put(i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain(i)).isTrue();
+            assertThat(filter.put(i)).isFalse();
+        }
+    }
+
+    @Test
+    public void shouldApproximateFalsePositiveRate() throws Exception {
+        BloomFilter<Integer> filter = new BloomFilter<Integer>(10000, 0.01);
+
+        for (int i = 0; i < 10000; i++) {
+            filter.put(i);
+        }
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2000);
+    }
+
+    @Test
+    public void shouldDistinguishStringsWithEqualHashCodes() throws Exception {
+        BloomFilter<String> filter = new BloomFilter<String>(1000, 1e-9);
+
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat(filter.put("Aa")).isTrue();
+        assertThat(filter.put("BB")).isTrue();
+    }
+
+    @Test
+    public void shouldDistinguishLongsWithEqualHashCodes() throws Exception {
+        BloomFilter<Long> filter = new BloomFilter<Long>(1000, 1e-9);
+
+        assertThat(Long.valueOf(0L).hashCode()).isEqualTo(Long.valueOf(-1L).hashCode());
+        assertThat(filter.put(0L)).isTrue();
+        assertThat(filter.put(-1L)).isTrue();
+    }
+
+    @Test
+    public void shouldUseGivenHash() throws Exception {
+        BloomFilter<String> filter = new BloomFilter<String>(1000, 1e-9, new ToLongFunction<String>() {
+            @Override
+            public long applyAsLong(String argument) {
+                return argument.length();
+            }
+        });
+
+        assertThat(filter.put("a")).isTrue();
+        assertThat(filter.put("b")).isFalse();
+        assertThat(filter.put("ab")).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireExpectedItems() throws Exception {
+        new BloomFilter<String>(0, 0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireProbability() throws Exception {
+        new BloomFilter<String>(10, 1.0);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static almost.functional.utils.Iterators.collect;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExternalSortIteratorTest {
+    private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+        @Override
+        public int compare(Integer first, Integer second) {
+            return first.compareTo(second);
+        }
+    };
+
+    @Test
+    public void shouldSortInMemory() throws Exception {
+        ExternalSortIterator<Integer> sorter = new ExternalSortIterator<Integer>(Arrays.asList(3, 1, 2).iterator(), NATURAL, 10);
+
+        assertThat(collect(sorter)).containsExactly(1, 2, 3);
+        assertThat(sorter.spillCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldSpillAndMerge() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            numbers.add(random.nextInt(500));
+        }
+        ExternalSortIterator<Integer> sorter = new ExternalSortIterator<Integer>(numbers.iterator(), NATURAL, 64);
+
+        assertThat(sorter.hasNext()).isTrue();
+        assertThat(sorter.spillCount()).isEqualTo(15);
+        List<Integer> sorted = collect(sorter);
+        Collections.sort(numbers);
+        assertThat(sorted).isEqualTo(numbers);
+        assertThat(sorter.spillCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldBeStable() throws Exception {
+        List<String> words = Arrays.asList("bb", "a1", "cc", "a2", "dd", "a3", "b2");
+        ExternalSortIterator<String> sorter = new ExternalSortIterator<String>(words.iterator(), new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return first.charAt(0) - second.charAt(0);
+            }
+        }, 2);
+
+        assertThat(collect(sorter)).containsExactly("a1", "a2", "a3", "bb", "b2", "cc", "dd");
+    }
+
+    @Test
+    public void shouldMergeInPassesBeyondFanIn() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            numbers.add(random.nextInt(500));
+        }
+        ExternalSortIterator<Integer> sorter = new ExternalSortIterator<Integer>(numbers.iterator(), NATURAL, 64, 4);
+
+        assertThat(sorter.hasNext()).isTrue();
+        assertThat(sorter.spillCount()).isEqualTo(4);
+        List<Integer> sorted = collect(sorter);
+        Collections.sort(numbers);
+        assertThat(sorted).isEqualTo(numbers);
+        assertThat(sorter.spillCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldBeStableAcrossMergePasses() throws Exception {
+        List<String> words = Arrays.asList("bb", "a1", "cc", "a2", "dd", "a3", "b2", "a4", "ee", "a5");
+        ExternalSortIterator<String> sorter = new ExternalSortIterator<String>(words.iterator(), new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return first.charAt(0) - second.charAt(0);
+            }
+        }, 1, 2);
+
+        assertThat(collect(sorter)).containsExactly("a1", "a2", "a3", "a4", "a5", "bb", "b2", "cc", "dd", "ee");
+    }
+
+    @Test
+    public void shouldCloseEarly() throws Exception {
+        ExternalSortIterator<Integer> sorter = new ExternalSortIterator<Integer>(Arrays.asList(5, 4, 3, 2, 1).iterator(), NATURAL, 2);
+
+        assertThat(sorter.next()).isEqualTo(1);
+        assertThat(sorter.spillCount()).isEqualTo(2);
+        sorter.close();
+        assertThat(sorter.spillCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireBudget() throws Exception {
+        new ExternalSortIterator<Integer>(Arrays.asList(1).iterator(), NATURAL, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireFanIn() throws Exception {
+        new ExternalSortIterator<Integer>(Arrays.asList(1).iterator(), NATURAL, 10, 1);
+    }
+}
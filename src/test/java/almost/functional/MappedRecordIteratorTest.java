@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedRecordIteratorTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    @Test
+    public void shouldReadLines() throws Exception {
+        File file = write("alpha\r\nbeta\n\ngamma", UTF_8);
+
+        assertThat(drain(MappedRecordIterator.strings(file, '\n', true, UTF_8, MappedRecordIterator.MAX_REGION)))
+                .containsExactly("alpha", "beta", "", "gamma");
+    }
+
+    @Test
+    public void shouldReadRecords() throws Exception {
+        File file = write("a,b\r,,c,", UTF_8);
+
+        assertThat(drain(MappedRecordIterator.strings(file, ',', false, UTF_8, MappedRecordIterator.MAX_REGION)))
+                .containsExactly("a", "b\r", "", "c");
+    }
+
+    @Test
+    public void shouldReadEmptyFile() throws Exception {
+        File file = write("", UTF_8);
+
+        assertThat(drain(MappedRecordIterator.strings(file, '\n', true, UTF_8, MappedRecordIterator.MAX_REGION)))
+                .isEmpty();
+    }
+
+    @Test
+    public void shouldRemapAcrossRegions() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            String line = "line \u00e9 " + i;
+            expected.add(line);
+            builder.append(line).append('\n');
+        }
+        File file = write(builder.toString(), UTF_8);
+
+        assertThat(drain(MappedRecordIterator.strings(file, '\n', true, UTF_8, 64))).isEqualTo(expected);
+        assertThat(drain(MappedRecordIterator.views(file, '\n', true, UTF_8, 64))).isEqualTo(expected);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectRecordLongerThanRegion() throws Exception {
+        File file = write("short\nmuch too long for the region\n", UTF_8);
+
+        drain(MappedRecordIterator.strings(file, '\n', true, UTF_8, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMultiByteDelimiter() throws Exception {
+        MappedRecordIterator.strings(write("a", UTF_8), '\u00e9', false, UTF_8, MappedRecordIterator.MAX_REGION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDelimiterWithinMultiByteCharacters() throws Exception {
+        Charset shiftJis = Charset.forName("Shift_JIS");
+        MappedRecordIterator.strings(write("a", shiftJis), '\\', false, shiftJis, MappedRecordIterator.MAX_REGION);
+    }
+
+    @Test
+    public void shouldReadLinesInMultiByteCharset() throws Exception {
+        Charset shiftJis = Charset.forName("Shift_JIS");
+        File file = write("\u8868\n\u30bd\n", shiftJis);
+
+        assertThat(drain(MappedRecordIterator.strings(file, '\n', true, shiftJis, MappedRecordIterator.MAX_REGION)))
+                .containsExactly("\u8868", "\u30bd");
+    }
+
+    @Test
+    public void shouldViewLatin1() throws Exception {
+        File file = write("caf\u00e9\nna\u00efve\n", ISO_8859_1);
+        MappedRecordIterator<CharSequence> views = MappedRecordIterator.views(file, '\n', true, ISO_8859_1,
+                MappedRecordIterator.MAX_REGION);
+
+        CharSequence first = views.next();
+        assertThat(first.length()).isEqualTo(4);
+        assertThat(first.charAt(3)).isEqualTo('\u00e9');
+        assertThat(first.subSequence(1, 3).toString()).isEqualTo("af");
+        assertThat(views.next().toString()).isEqualTo("na\u00efve");
+        assertThat(views.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldCloseEarly() throws Exception {
+        File file = write("a\nb\n", UTF_8);
+        MappedRecordIterator<String> records = MappedRecordIterator.strings(file, '\n', true, UTF_8,
+                MappedRecordIterator.MAX_REGION);
+
+        assertThat(records.next()).isEqualTo("a");
+        records.close();
+        records.close();
+        assertThat(records.hasNext()).isFalse();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldCloseAfterLocatingRecord() throws Exception {
+        File file = write("a\nb\n", UTF_8);
+        MappedRecordIterator<String> records = MappedRecordIterator.strings(file, '\n', true, UTF_8,
+                MappedRecordIterator.MAX_REGION);
+
+        assertThat(records.hasNext()).isTrue();
+        records.close();
+        assertThat(records.hasNext()).isFalse();
+        records.next();
+    }
+
+    static File write(String content, Charset charset) throws IOException {
+        File file = File.createTempFile("almost-functional-mapped", ".txt");
+        file.deleteOnExit();
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes(charset));
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
+    private static List<String> drain(MappedRecordIterator<? extends CharSequence> iterator) {
+        List<String> list = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next().toString());
+        }
+        return list;
+    }
+}
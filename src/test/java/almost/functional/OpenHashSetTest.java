@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenHashSetTest {
+
+    @Test
+    public void shouldAdd() throws Exception {
+        OpenHashSet<String> set = new OpenHashSet<String>();
+
+        assertThat(set.add("a")).isTrue();
+        assertThat(set.add("b")).isTrue();
+        assertThat(set.add("a")).isFalse();
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains("a")).isTrue();
+        assertThat(set.contains("c")).isFalse();
+    }
+
+    @Test
+    public void shouldAllowNull() throws Exception {
+        OpenHashSet<String> set = new OpenHashSet<String>();
+
+        assertThat(set.contains(null)).isFalse();
+        assertThat(set.add(null)).isTrue();
+        assertThat(set.add(null)).isFalse();
+        assertThat(set.contains(null)).isTrue();
+    }
+
+    @Test
+    public void shouldGrow() throws Exception {
+        OpenHashSet<Integer> set = new OpenHashSet<Integer>(4);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(set.add(i * 16)).isTrue();
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertThat(set.contains(i * 16)).isTrue();
+            assertThat(set.add(i * 16)).isFalse();
+        }
+        assertThat(set.size()).isEqualTo(10000);
+        assertThat(set.contains(1)).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PipelineTest {
+
+    @Test
+    public void shouldFuseFilters() throws Exception {
+        final List<String> tested = new ArrayList<String>();
+        Pipeline<Integer> even = Pipeline.of(Arrays.asList(1, 2, 3, 4, 5, 6)).filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                tested.add("even " + testValue);
+                return testValue % 2 == 0;
+            }
+        });
+        Pipeline<Integer> evenAndLarge = even.filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                tested.add("large " + testValue);
+                return testValue > 3;
+            }
+        });
+
+        assertThat(evenAndLarge.getClass()).isEqualTo(even.getClass());
+        assertThat(drain(evenAndLarge.iterator())).containsExactly(4, 6);
+        assertThat(tested).containsExactly("even 1", "even 2", "large 2", "even 3", "even 4", "large 4", "even 5",
+                "even 6", "large 6");
+        tested.clear();
+        assertThat(drain(even.iterator())).containsExactly(2, 4, 6);
+        assertThat(tested).hasSize(6);
+    }
+
+    @Test
+    public void shouldFuseMaps() throws Exception {
+        Pipeline<Integer> doubled = Pipeline.of(Arrays.asList(1, 2, 3)).map(new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                return argument * 2;
+            }
+        });
+        Pipeline<String> described = doubled.map(new Function<Integer, String>() {
+            @Override
+            public String apply(Integer argument) {
+                return "#" + argument;
+            }
+        });
+
+        assertThat(described.getClass()).isEqualTo(doubled.getClass());
+        assertThat(drain(described.iterator())).containsExactly("#2", "#4", "#6");
+        assertThat(drain(doubled.iterator())).containsExactly(2, 4, 6);
+        assertThat(described.iterator() instanceof SizedIterator).isTrue();
+    }
+
+    @Test
+    public void shouldFuseChunks() throws Exception {
+        List<Integer> source = new ArrayList<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            source.add(i);
+        }
+        Pipeline<Integer> pipeline = Pipeline.of(source).filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 == 0;
+            }
+        }).filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 3 == 0;
+            }
+        });
+
+        int count = 0;
+        for (Iterator<Iterator<Integer>> chunks = pipeline.chunks(); chunks.hasNext(); ) {
+            count += drain(chunks.next()).size();
+        }
+        assertThat(count).isEqualTo(834);
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> list = new ArrayList<T>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+}
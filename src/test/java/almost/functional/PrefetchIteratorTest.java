@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class PrefetchIteratorTest {
+
+    @Test
+    public void shouldPrefetch() throws Exception {
+        PrefetchIterator<String> iterator = new PrefetchIterator<String>(Arrays.asList("a", null, "c").iterator(), 1);
+        List<String> read = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            read.add(iterator.next());
+        }
+
+        assertThat(read).containsExactly("a", null, "c");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowWhenExhausted() throws Exception {
+        PrefetchIterator<String> iterator = new PrefetchIterator<String>(new ArrayList<String>().iterator(), 4);
+        iterator.next();
+    }
+
+    @Test
+    public void shouldReadAhead() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(counting(pulled, 100), 10);
+
+        assertThat(iterator.next()).isEqualTo(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pulled.get() < 12 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+        assertThat(pulled.get()).isEqualTo(12);
+        iterator.close();
+    }
+
+    @Test
+    public void shouldPropagateException() throws Exception {
+        Iterator<Integer> source = new ImmutableIterator<Integer>() {
+            private int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (count == 2) {
+                    throw new IllegalStateException("broken source");
+                }
+                return count++;
+            }
+        };
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(source, 8);
+
+        assertThat(iterator.next()).isEqualTo(0);
+        assertThat(iterator.next()).isEqualTo(1);
+        try {
+            iterator.hasNext();
+            fail("expected exception");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("broken source");
+        }
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldStopOnClose() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger pulled = new AtomicInteger(0);
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(new ImmutableIterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (pulled.incrementAndGet() > 2) {
+                    blocked.countDown();
+                }
+                return pulled.get();
+            }
+        }, 1);
+
+        assertThat(iterator.next()).isEqualTo(1);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        iterator.close();
+        Thread.sleep(20);
+        int stopped = pulled.get();
+        Thread.sleep(20);
+        assertThat(pulled.get()).isEqualTo(stopped);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldPropagateError() throws Exception {
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(failing(new StackOverflowError("deep")), 8);
+
+        try {
+            iterator.hasNext();
+            fail("expected error");
+        } catch (StackOverflowError e) {
+            assertThat(e).hasMessage("deep");
+        }
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldWrapOtherThrowable() throws Exception {
+        final Throwable thrown = new Throwable("odd");
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(failing(thrown), 8);
+
+        try {
+            iterator.hasNext();
+            fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e.getCause()).isSameAs(thrown);
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldNotReturnBufferedAfterClose() throws Exception {
+        PrefetchIterator<Integer> iterator = new PrefetchIterator<Integer>(counting(new AtomicInteger(0), 10), 8);
+
+        assertThat(iterator.hasNext()).isTrue();
+        iterator.close();
+        assertThat(iterator.hasNext()).isFalse();
+        iterator.next();
+    }
+
+    private static Iterator<Integer> failing(final Throwable throwable) {
+        return new ImmutableIterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return PrefetchIteratorTest.<RuntimeException>sneakyThrow(throwable);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> Integer sneakyThrow(Throwable throwable) throws E {
+        throw (E) throwable;
+    }
+
+    private static Iterator<Integer> counting(final AtomicInteger pulled, final int size) {
+        return new ImmutableIterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < size;
+            }
+
+            @Override
+            public Integer next() {
+                return pulled.getAndIncrement();
+            }
+        };
+    }
+}
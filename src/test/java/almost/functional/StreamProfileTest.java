@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import almost.functional.utils.Collectors;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamProfileTest {
+    private static final Predicate<Integer> EVEN = new Predicate<Integer>() {
+        @Override
+        public boolean test(Integer testValue) {
+            return testValue % 2 == 0;
+        }
+    };
+    private static final Function<Integer, String> DESCRIBE = new Function<Integer, String>() {
+        @Override
+        public String apply(Integer argument) {
+            return "#" + argument;
+        }
+    };
+
+    @Test
+    public void shouldRecordStages() throws Exception {
+        StreamProfile profile = new StreamProfile();
+        List<String> result = Stream.of(1, 2, 3, 4, 5, 6).profile(profile)
+                .filter(EVEN)
+                .map(DESCRIBE)
+                .collect(Collectors.<String>toList());
+
+        assertThat(result).containsExactly("#2", "#4", "#6");
+        List<StreamProfile.Stage> stages = profile.getStages();
+        assertThat(stages).hasSize(2);
+        assertThat(stages.get(0).getName()).isEqualTo("1:filter");
+        assertThat(stages.get(0).getElementsIn()).isEqualTo(6);
+        assertThat(stages.get(0).getElementsOut()).isEqualTo(3);
+        assertThat(stages.get(1).getName()).isEqualTo("2:map");
+        assertThat(stages.get(1).getElementsIn()).isEqualTo(3);
+        assertThat(stages.get(1).getElementsOut()).isEqualTo(3);
+        assertThat(stages.get(1).getNanos()).isGreaterThanOrEqualTo(0);
+        assertThat(profile.toString()).contains("1:filter in=6 out=3");
+    }
+
+    @Test
+    public void shouldRecordSequentialStages() throws Exception {
+        StreamProfile profile = new StreamProfile();
+        long count = Stream.of(1, 2, 3, 4, 5).profile(profile)
+                .dropWhile(new Predicate<Integer>() {
+                    @Override
+                    public boolean test(Integer testValue) {
+                        return testValue < 2;
+                    }
+                })
+                .takeWhile(new Predicate<Integer>() {
+                    @Override
+                    public boolean test(Integer testValue) {
+                        return testValue < 4;
+                    }
+                })
+                .flatMap(new Function<Integer, Iterable<Integer>>() {
+                    @Override
+                    public Iterable<Integer> apply(Integer argument) {
+                        return Arrays.asList(argument, argument);
+                    }
+                })
+                .count();
+
+        assertThat(count).isEqualTo(4);
+        List<StreamProfile.Stage> stages = profile.getStages();
+        assertThat(stages).hasSize(3);
+        assertThat(stages.get(0).getName()).isEqualTo("1:dropWhile");
+        assertThat(stages.get(0).getElementsIn()).isEqualTo(4);
+        assertThat(stages.get(0).getElementsOut()).isEqualTo(3);
+        assertThat(stages.get(1).getName()).isEqualTo("2:takeWhile");
+        assertThat(stages.get(1).getElementsIn()).isEqualTo(3);
+        assertThat(stages.get(1).getElementsOut()).isEqualTo(2);
+        assertThat(stages.get(2).getName()).isEqualTo("3:flatMap");
+        assertThat(stages.get(2).getElementsIn()).isEqualTo(2);
+        assertThat(stages.get(2).getElementsOut()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldRecordParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(i);
+        }
+        StreamProfile profile = new StreamProfile();
+
+        assertThat(Stream.of(numbers).parallel().profile(profile).filter(EVEN).count()).isEqualTo(5000);
+        assertThat(profile.getStages().get(0).getElementsIn()).isEqualTo(10000);
+        assertThat(profile.getStages().get(0).getElementsOut()).isEqualTo(5000);
+    }
+
+    @Test
+    public void shouldPublishOnClose() throws Exception {
+        final List<String> published = new ArrayList<String>();
+        StreamProfile profile = new StreamProfile(new MetricsSink() {
+            @Override
+            public void record(StreamProfile.Stage stage) {
+                published.add(stage.getName() + " " + stage.getElementsOut());
+            }
+        });
+        Stream<String> stream = Stream.of(1, 2, 3).profile(profile).map(DESCRIBE);
+
+        assertThat(stream.collect(Collectors.<String>toList())).hasSize(3);
+        assertThat(published).isEmpty();
+        stream.close();
+        assertThat(published).containsExactly("1:map 3");
+    }
+
+    @Test
+    public void shouldNotRecordUnprofiled() throws Exception {
+        StreamProfile profile = new StreamProfile();
+        Stream<Integer> stream = Stream.of(1, 2, 3).filter(EVEN);
+        stream.profile(profile);
+
+        assertThat(stream.count()).isEqualTo(1);
+        assertThat(profile.getStages()).isEmpty();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package almost.functional;
+
+import almost.functional.utils.Collectors;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamTemplateTest {
+    private static final Predicate<Integer> EVEN = new Predicate<Integer>() {
+        @Override
+        public boolean test(Integer testValue) {
+            return testValue % 2 == 0;
+        }
+    };
+    private static final Predicate<Integer> POSITIVE = new Predicate<Integer>() {
+        @Override
+        public boolean test(Integer testValue) {
+            return testValue > 0;
+        }
+    };
+    private static final Function<Integer, Integer> SQUARE = new Function<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer argument) {
+            return argument * argument;
+        }
+    };
+    private static final Function<Integer, String> DESCRIBE = new Function<Integer, String>() {
+        @Override
+        public String apply(Integer argument) {
+            return "#" + argument;
+        }
+    };
+
+    @Test
+    public void shouldBeEmpty() throws Exception {
+        StreamTemplate<String, String> template = StreamTemplate.of();
+
+        assertThat(template.stream(Arrays.asList("a", "b")).collect(Collectors.<String>toList()))
+                .containsExactly("a", "b");
+    }
+
+    @Test
+    public void shouldChainFiltersAndMaps() throws Exception {
+        StreamTemplate<Integer, String> template = StreamTemplate.<Integer>of()
+                .filter(EVEN).filter(POSITIVE)
+                .map(SQUARE).map(DESCRIBE);
+
+        assertThat(template.stream(Arrays.asList(-2, 1, 2, 3, 4)).collect(Collectors.<String>toList()))
+                .containsExactly("#4", "#16");
+    }
+
+    @Test
+    public void shouldFuseAdjacentFiltersAndMaps() throws Exception {
+        StreamTemplate<Integer, Integer> evens = StreamTemplate.<Integer>of().filter(EVEN);
+        StreamTemplate<Integer, String> template = evens.filter(POSITIVE).map(SQUARE).map(DESCRIBE);
+
+        assertThat(evens.stages()).isEqualTo(1);
+        assertThat(template.stages()).isEqualTo(2);
+        assertThat(template.stream(Arrays.asList(-2, 2)).collect(Collectors.<String>toList())).containsExactly("#4");
+        assertThat(template.stream(Arrays.asList(4, 5)).collect(Collectors.<String>toList())).containsExactly("#16");
+        assertThat(template.stages()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotFuseAcrossOtherSteps() throws Exception {
+        StreamTemplate<Integer, Integer> template = StreamTemplate.<Integer>of()
+                .filter(EVEN).limit(3).filter(POSITIVE).map(SQUARE).skip(1).map(SQUARE);
+
+        assertThat(template.stages()).isEqualTo(6);
+        assertThat(template.stream(Arrays.asList(-2, 1, 2, 3, 4, 6)).collect(Collectors.<Integer>toList()))
+                .containsExactly(256);
+    }
+
+    @Test
+    public void shouldReuse() throws Exception {
+        StreamTemplate<Integer, Integer> template = StreamTemplate.<Integer>of().filter(EVEN).map(SQUARE).limit(2);
+
+        assertThat(template.stream(Arrays.asList(1, 2, 3, 4, 5, 6)).collect(Collectors.<Integer>toList()))
+                .containsExactly(4, 16);
+        assertThat(template.stream(Arrays.asList(8, 10).iterator()).collect(Collectors.<Integer>toList()))
+                .containsExactly(64, 100);
+    }
+
+    @Test
+    public void shouldNotChangeWhenExtended() throws Exception {
+        StreamTemplate<Integer, Integer> evens = StreamTemplate.<Integer>of().filter(EVEN);
+        StreamTemplate<Integer, Integer> positiveEvens = evens.filter(POSITIVE);
+
+        assertThat(evens.stream(Arrays.asList(-2, 2)).count()).isEqualTo(2);
+        assertThat(positiveEvens.stream(Arrays.asList(-2, 2)).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldApplyOtherStages() throws Exception {
+        StreamTemplate<String, List<Character>> template = StreamTemplate.<String>of()
+                .flatMap(new Function<String, Iterable<Character>>() {
+                    @Override
+                    public Iterable<Character> apply(String argument) {
+                        List<Character> characters = new ArrayList<Character>();
+                        for (char c : argument.toCharArray()) {
+                            characters.add(c);
+                        }
+                        return characters;
+                    }
+                })
+                .distinct()
+                .sorted(new Comparator<Character>() {
+                    @Override
+                    public int compare(Character o1, Character o2) {
+                        return o1.compareTo(o2);
+                    }
+                })
+                .skip(1)
+                .chunked(2);
+
+        assertThat(template.stream(Arrays.asList("dcb", "abe")).collect(Collectors.<List<Character>>toList()))
+                .containsExactly(Arrays.asList('b', 'c'), Arrays.asList('d', 'e'));
+    }
+
+    @Test
+    public void shouldRunParallelAfterSort() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 10000; i > 0; i--) {
+            numbers.add(i);
+        }
+        StreamTemplate<Integer, Integer> template = StreamTemplate.<Integer>of()
+                .sorted(new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer o1, Integer o2) {
+                        return o1.compareTo(o2);
+                    }
+                })
+                .filter(EVEN).map(SQUARE).parallel();
+
+        Stream<Integer> stream = template.stream(numbers);
+        assertThat(stream.isParallel()).isTrue();
+        assertThat(stream.count()).isEqualTo(5000);
+        assertThat(template.sequential().stream(numbers).limit(2).collect(Collectors.<Integer>toList()))
+                .containsExactly(4, 16);
+    }
+
+    @Test
+    public void shouldRunParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(i);
+        }
+        StreamTemplate<Integer, Integer> template = StreamTemplate.<Integer>of().filter(EVEN).parallel();
+
+        Stream<Integer> stream = template.stream(numbers);
+        assertThat(stream.isParallel()).isTrue();
+        assertThat(stream.count()).isEqualTo(5000);
+    }
+}
@@ -54,4 +54,18 @@ public class ArrayIterableTest extends ImmutableIteratorContract {
         }
         assertThat(length).isEqualTo(stringArray.length);
     }
+
+    @Test
+    public void shouldIterateRange() throws Exception {
+        ArrayIterable<String> strings = newIterable("a", "b", "c", "d");
+
+        assertThat(strings.size()).isEqualTo(4);
+        assertThat(strings.iterator(1, 3)).containsExactly("b", "c");
+        assertThat(strings.iterator(2, 2).hasNext()).isFalse();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectBadRange() throws Exception {
+        newIterable("a", "b").iterator(1, 3);
+    }
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional.utils;
+
+import almost.functional.*;
+import com.github.nwillc.contracts.UtilityClassContract;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static almost.functional.utils.Collectors.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class CollectorsTest extends UtilityClassContract {
+    private static final Function<String, Integer> LENGTH = new Function<String, Integer>() {
+        @Override
+        public Integer apply(String argument) {
+            return argument.length();
+        }
+    };
+
+    @Override
+    public Class<?> getClassToTest() {
+        return Collectors.class;
+    }
+
+    @Test
+    public void shouldCollectToList() throws Exception {
+        List<String> list = Stream.of("a", "b", "c").collect(Collectors.<String>toList());
+        assertThat(list).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void shouldCollectToSet() throws Exception {
+        Set<String> set = Stream.of("a", "b", "a").collect(Collectors.<String>toSet());
+        assertThat(set).containsOnly("a", "b");
+    }
+
+    @Test
+    public void shouldCollectToMap() throws Exception {
+        Map<String, Integer> map = Stream.of("a", "bb").collect(toMap(new Function<String, String>() {
+            @Override
+            public String apply(String argument) {
+                return argument;
+            }
+        }, LENGTH));
+        assertThat(map).hasSize(2).containsEntry("a", 1).containsEntry("bb", 2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectDuplicateKeys() throws Exception {
+        Stream.of("a", "b").collect(toMap(LENGTH, LENGTH));
+    }
+
+    @Test
+    public void shouldJoin() throws Exception {
+        assertThat(Stream.of("a", "b", "c").collect(joining())).isEqualTo("abc");
+        assertThat(Stream.of("a", "b", "c").collect(joining(", "))).isEqualTo("a, b, c");
+        assertThat(Stream.of("", "b").collect(joining(",", "[", "]"))).isEqualTo("[,b]");
+        assertThat(Stream.<String>of().collect(joining(",", "[", "]"))).isEqualTo("[]");
+    }
+
+    @Test
+    public void shouldGroupBy() throws Exception {
+        Map<Integer, List<String>> groups = Stream.of("a", "bb", "c", "dd", "eee").collect(groupingBy(LENGTH));
+        assertThat(groups).hasSize(3);
+        assertThat(groups.get(1)).containsExactly("a", "c");
+        assertThat(groups.get(2)).containsExactly("bb", "dd");
+        assertThat(groups.get(3)).containsExactly("eee");
+    }
+
+    @Test
+    public void shouldGroupByCounting() throws Exception {
+        Map<Integer, Long> counts = Stream.of("a", "bb", "c").collect(groupingBy(LENGTH, Collectors.<String>counting()));
+        assertThat(counts).containsEntry(1, 2L).containsEntry(2, 1L);
+    }
+
+    @Test
+    public void shouldPartition() throws Exception {
+        Map<Boolean, List<Integer>> partitions = Stream.of(1, 2, 3).collect(partitioningBy(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue > 5;
+            }
+        }));
+        assertThat(partitions.get(true)).isEmpty();
+        assertThat(partitions.get(false)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void shouldCount() throws Exception {
+        assertThat(Stream.of("a", "b").collect(Collectors.<String>counting())).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldSum() throws Exception {
+        assertThat(Stream.of("a", "bb").collect(summingInt(new ToIntFunction<String>() {
+            @Override
+            public int applyAsInt(String argument) {
+                return argument.length();
+            }
+        }))).isEqualTo(3);
+        assertThat(Stream.of("a", "bb").collect(summingLong(new ToLongFunction<String>() {
+            @Override
+            public long applyAsLong(String argument) {
+                return argument.length();
+            }
+        }))).isEqualTo(3L);
+        assertThat(Stream.of("a", "bb").collect(summingDouble(new ToDoubleFunction<String>() {
+            @Override
+            public double applyAsDouble(String argument) {
+                return argument.length() / 2.0;
+            }
+        }))).isEqualTo(1.5, offset(0.0001));
+    }
+
+    @Test
+    public void shouldFindMinAndMax() throws Exception {
+        Comparator<String> byLength = new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return o1.length() - o2.length();
+            }
+        };
+
+        assertThat(Stream.of("bb", "a", "c", "ddd").collect(minBy(byLength)).get()).isEqualTo("a");
+        assertThat(Stream.of("bb", "a", "c", "ddd").collect(maxBy(byLength)).get()).isEqualTo("ddd");
+        assertThat(Stream.<String>of().collect(maxBy(byLength)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void shouldCountDistinctApproximately() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            numbers.add(i % 50000);
+        }
+
+        assertThat(Stream.of(numbers).collect(Collectors.<Integer>countingDistinctApprox())).isBetween(48500L, 51500L);
+        assertThat(Stream.of(numbers).parallel().collect(Collectors.<Integer>countingDistinctApprox()))
+                .isBetween(48500L, 51500L);
+        assertThat(Stream.of(1, 2, 2, 3).collect(Collectors.<Integer>countingDistinctApprox())).isEqualTo(3L);
+    }
+
+    @Test
+    public void shouldCountDistinctLongsSharingHashCode() throws Exception {
+        List<Long> numbers = new ArrayList<Long>();
+        for (long i = 0; i < 1000; i++) {
+            numbers.add(i << 32 | i);
+        }
+
+        assertThat(Stream.of(numbers).collect(Collectors.<Long>countingDistinctApprox())).isBetween(985L, 1015L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPrecision() throws Exception {
+        countingDistinctApprox(2);
+    }
+
+    @Test
+    public void shouldTee() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 1; i <= 10000; i++) {
+            numbers.add(i);
+        }
+        Comparator<Integer> natural = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+        };
+        ToLongFunction<Integer> value = new ToLongFunction<Integer>() {
+            @Override
+            public long applyAsLong(Integer argument) {
+                return argument;
+            }
+        };
+
+        List<Object> results = Stream.of(numbers).parallel().collect(Collectors.<Integer>tee(
+                Collectors.<Integer>counting(), summingLong(value), minBy(natural), maxBy(natural)));
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0)).isEqualTo(10000L);
+        assertThat(results.get(1)).isEqualTo(50005000L);
+        assertThat(((Optional<?>) results.get(2)).get()).isEqualTo(1);
+        assertThat(((Optional<?>) results.get(3)).get()).isEqualTo(10000);
+    }
+
+    @Test
+    public void shouldTeeList() throws Exception {
+        List<Collector<Integer, ?, ?>> collectors = new ArrayList<Collector<Integer, ?, ?>>();
+        collectors.add(Collectors.<Integer>counting());
+        collectors.add(Collectors.<Integer>toList());
+
+        List<Object> results = Stream.of(1, 2, 3).collect(Collectors.<Integer>tee(collectors));
+
+        assertThat(results).containsExactly(3L, Arrays.asList(1, 2, 3));
+    }
+
+    @Test
+    public void shouldTeeAndMerge() throws Exception {
+        Double average = Stream.of(1, 2, 3, 4).collect(tee(Collectors.<Integer>counting(), summingInt(new ToIntFunction<Integer>() {
+            @Override
+            public int applyAsInt(Integer argument) {
+                return argument;
+            }
+        }), new BiFunction<Long, Integer, Double>() {
+            @Override
+            public Double apply(Long count, Integer sum) {
+                return sum / (double) count;
+            }
+        }));
+
+        assertThat(average).isEqualTo(2.5, offset(0.0001));
+    }
+
+    @Test
+    public void shouldCollectInParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(i);
+        }
+        assertThat(Stream.of(numbers).parallel().collect(Collectors.<Integer>toList())).isEqualTo(numbers);
+        Map<Boolean, Long> evenOdd = Stream.of(numbers).parallel().collect(partitioningBy(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 == 0;
+            }
+        }, Collectors.<Integer>counting()));
+        assertThat(evenOdd).containsEntry(true, 5000L).containsEntry(false, 5000L);
+        assertThat(Stream.of(numbers).parallel().map(new Function<Integer, String>() {
+            @Override
+            public String apply(Integer argument) {
+                return argument.toString();
+            }
+        }).collect(joining(",")).split(",")).hasSize(10000);
+    }
+}
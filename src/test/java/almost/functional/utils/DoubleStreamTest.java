@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional.utils;
+
+import almost.functional.*;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class DoubleStreamTest {
+
+    @Test
+    public void testSum() throws Exception {
+        double total = Stream.of("1.5", "2.5").mapToDouble(new ToDoubleFunction<String>() {
+            @Override
+            public double applyAsDouble(String argument) {
+                return Double.parseDouble(argument);
+            }
+        }).sum();
+        assertThat(total).isEqualTo(4.0, offset(0.0001));
+    }
+
+    @Test
+    public void testMinMaxAverage() throws Exception {
+        assertThat(DoubleStream.of(1.0, -2.0, 4.0).min().get()).isEqualTo(-2.0, offset(0.0001));
+        assertThat(DoubleStream.of(1.0, -2.0, 4.0).max().get()).isEqualTo(4.0, offset(0.0001));
+        assertThat(DoubleStream.of(1.0, 2.0).average().get()).isEqualTo(1.5, offset(0.0001));
+        assertThat(DoubleStream.of().average().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        DoubleSummaryStatistics statistics = DoubleStream.of(1.0, 2.0, 3.0).filter(new DoublePredicate() {
+            @Override
+            public boolean test(double testValue) {
+                return testValue > 1.0;
+            }
+        }).summaryStatistics();
+        assertThat(statistics.getCount()).isEqualTo(2);
+        assertThat(statistics.getSum()).isEqualTo(5.0, offset(0.0001));
+        assertThat(statistics.getMin()).isEqualTo(2.0, offset(0.0001));
+        assertThat(statistics.getMax()).isEqualTo(3.0, offset(0.0001));
+    }
+
+    @Test
+    public void testMapToObj() throws Exception {
+        assertThat(DoubleStream.of(0.5).map(new DoubleUnaryOperator() {
+            @Override
+            public double applyAsDouble(double operand) {
+                return operand * 2;
+            }
+        }).mapToObj(new DoubleFunction<String>() {
+            @Override
+            public String apply(double argument) {
+                return String.valueOf(argument);
+            }
+        }).reduce(new BiFunction<String, String, String>() {
+            @Override
+            public String apply(String first, String second) {
+                return first + second;
+            }
+        }).get()).isEqualTo("1.0");
+    }
+}
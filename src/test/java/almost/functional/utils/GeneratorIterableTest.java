@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional.utils;
+
+import almost.functional.Consumer;
+import almost.functional.Generator;
+import almost.functional.GeneratorIterable;
+import almost.functional.Stream;
+import com.github.nwillc.contracts.ImmutableIteratorContract;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneratorIterableTest extends ImmutableIteratorContract {
+
+    @Override
+    protected Iterator getNonEmptyIterator() {
+        return new GeneratorIterable<Integer>(new CountingGenerator(3)).iterator();
+    }
+
+    @Test
+    public void shouldGenerateNull() throws Exception {
+        final String[] values = {"a", null, "b"};
+        Iterable<String> iterable = Iterables.iterable(new Generator<String>() {
+            private int position = 0;
+
+            @Override
+            public boolean next(Consumer<? super String> emit) {
+                if (position < values.length) {
+                    emit.accept(values[position++]);
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        List<String> generated = new ArrayList<String>();
+        for (String value : iterable) {
+            generated.add(value);
+        }
+        assertThat(generated).containsExactly("a", null, "b");
+        assertThat(iterable.iterator().hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldNotCallGeneratorAfterEnd() throws Exception {
+        CountingGenerator generator = new CountingGenerator(2);
+        Iterator<Integer> iterator = new GeneratorIterable<Integer>(generator).iterator();
+
+        assertThat(iterator.next()).isEqualTo(1);
+        assertThat(iterator.next()).isEqualTo(2);
+        assertThat(iterator.hasNext()).isFalse();
+        assertThat(iterator.hasNext()).isFalse();
+        assertThat(generator.calls).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectMissingElement() throws Exception {
+        new GeneratorIterable<Integer>(new Generator<Integer>() {
+            @Override
+            public boolean next(Consumer<? super Integer> emit) {
+                return true;
+            }
+        }).iterator().hasNext();
+    }
+
+    @Test
+    public void shouldStream() throws Exception {
+        CountingGenerator generator = new CountingGenerator(Integer.MAX_VALUE);
+
+        assertThat(Stream.of(generator).limit(5).count()).isEqualTo(5);
+        assertThat(generator.calls).isEqualTo(5);
+    }
+
+    private static class CountingGenerator implements Generator<Integer> {
+        private final int size;
+        private int calls = 0;
+        private int val = 0;
+
+        CountingGenerator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean next(Consumer<? super Integer> emit) {
+            calls++;
+            if (val >= size) {
+                return false;
+            }
+            emit.accept(++val);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package almost.functional.utils;
+
+import com.github.nwillc.contracts.UtilityClassContract;
+import org.junit.Test;
+
+import static almost.functional.utils.Hashing.hash;
+import static almost.functional.utils.Hashing.mix;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashingTest extends UtilityClassContract {
+
+    @Override
+    public Class<?> getClassToTest() {
+        return Hashing.class;
+    }
+
+    @Test
+    public void shouldHashEqualValuesEqually() throws Exception {
+        assertThat(hash("abc")).isEqualTo(hash(new String("abc")));
+        assertThat(hash(42L)).isEqualTo(hash(Long.valueOf(42)));
+        assertThat(hash(null)).isEqualTo(hash(null));
+    }
+
+    @Test
+    public void shouldHashNumberTypesApart() throws Exception {
+        assertThat(hash(1)).isNotEqualTo(hash(1L));
+        assertThat(hash((short) 1)).isNotEqualTo(hash(1));
+        assertThat(hash((byte) 1)).isNotEqualTo(hash((short) 1));
+    }
+
+    @Test
+    public void shouldHashLongsSharingHashCodeApart() throws Exception {
+        assertThat(Long.valueOf(0L).hashCode()).isEqualTo(Long.valueOf(1L << 32 | 1).hashCode());
+        assertThat(hash(0L)).isNotEqualTo(hash(1L << 32 | 1));
+    }
+
+    @Test
+    public void shouldMix() throws Exception {
+        assertThat(mix(0)).isEqualTo(0);
+        assertThat(Long.bitCount(mix(1) ^ mix(2))).isGreaterThan(16);
+    }
+}
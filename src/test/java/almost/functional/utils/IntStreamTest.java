@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional.utils;
+
+import almost.functional.*;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class IntStreamTest {
+
+    @Test
+    public void testSum() throws Exception {
+        assertThat(IntStream.of(1, 2, 3).sum()).isEqualTo(6);
+        assertThat(IntStream.of().sum()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertThat(IntStream.range(0, 5).count()).isEqualTo(5);
+        assertThat(IntStream.range(5, 5).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMinMax() throws Exception {
+        assertThat(IntStream.of(3, -1, 7).min().get()).isEqualTo(-1);
+        assertThat(IntStream.of(3, -1, 7).max().get()).isEqualTo(7);
+        assertThat(IntStream.of().min().isPresent()).isFalse();
+        assertThat(IntStream.of().max().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testAverage() throws Exception {
+        assertThat(IntStream.of(1, 2).average().get()).isEqualTo(1.5, offset(0.0001));
+        assertThat(IntStream.of().average().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testFilterMap() throws Exception {
+        int sum = IntStream.range(0, 10).filter(new IntPredicate() {
+            @Override
+            public boolean test(int testValue) {
+                return testValue % 2 == 0;
+            }
+        }).map(new IntUnaryOperator() {
+            @Override
+            public int applyAsInt(int operand) {
+                return operand * 10;
+            }
+        }).sum();
+        assertThat(sum).isEqualTo(200);
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        assertThat(IntStream.of(1, 2, 3, 4).reduce(1, new IntBinaryOperator() {
+            @Override
+            public int applyAsInt(int first, int second) {
+                return first * second;
+            }
+        })).isEqualTo(24);
+    }
+
+    @Test
+    public void testSummaryStatistics() throws Exception {
+        IntSummaryStatistics statistics = IntStream.of(4, 1, 7).summaryStatistics();
+        assertThat(statistics.getCount()).isEqualTo(3);
+        assertThat(statistics.getSum()).isEqualTo(12);
+        assertThat(statistics.getMin()).isEqualTo(1);
+        assertThat(statistics.getMax()).isEqualTo(7);
+        assertThat(statistics.getAverage()).isEqualTo(4.0, offset(0.0001));
+        assertThat(statistics.toString()).contains("count=3");
+
+        IntSummaryStatistics combined = statistics.combine(IntStream.of(10).summaryStatistics());
+        assertThat(combined.getCount()).isEqualTo(4);
+        assertThat(combined.getMax()).isEqualTo(10);
+    }
+
+    @Test
+    public void testMapToObj() throws Exception {
+        Stream<String> strings = IntStream.of(1, 2).mapToObj(new IntFunction<String>() {
+            @Override
+            public String apply(int argument) {
+                return "#" + argument;
+            }
+        });
+        assertThat(strings.reduce("", new BiFunction<String, String, String>() {
+            @Override
+            public String apply(String first, String second) {
+                return first + second;
+            }
+        })).isEqualTo("#1#2");
+        assertThat(IntStream.of(1, 2, 3).boxed().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testMapToInt() throws Exception {
+        int length = Stream.of("a", "bb", "ccc").mapToInt(new ToIntFunction<String>() {
+            @Override
+            public int applyAsInt(String argument) {
+                return argument.length();
+            }
+        }).sum();
+        assertThat(length).isEqualTo(6);
+    }
+
+    @Test
+    public void testConversions() throws Exception {
+        assertThat(IntStream.of(Integer.MAX_VALUE, Integer.MAX_VALUE).asLongStream().sum()).isEqualTo(2L * Integer.MAX_VALUE);
+        assertThat(IntStream.of(1, 2).asDoubleStream().sum()).isEqualTo(3.0, offset(0.0001));
+    }
+
+    @Test
+    public void testOnClose() throws Exception {
+        final AtomicBoolean tattleTale = new AtomicBoolean(false);
+        IntStream numbers = IntStream.of(1, 2).onClose(new Runnable() {
+            @Override
+            public void run() {
+                tattleTale.set(true);
+            }
+        });
+        numbers.map(new IntUnaryOperator() {
+            @Override
+            public int applyAsInt(int operand) {
+                return operand;
+            }
+        }).close();
+        assertThat(tattleTale.get()).isTrue();
+    }
+}
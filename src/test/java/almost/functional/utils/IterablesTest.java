@@ -20,7 +20,16 @@ import almost.functional.*;
 import com.github.nwillc.contracts.ImmutableIteratorContract;
 import org.junit.Test;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
 
 import static almost.functional.ArrayIterable.newIterable;
@@ -142,6 +151,19 @@ public class IterablesTest extends ImmutableIteratorContract {
         assertThat(filteredValues.hasNext()).isFalse();
     }
 
+    @Test
+    public void shouldFilterRepeatedly() throws Exception {
+        Iterable<String> filtered = filter(newIterable("a", null, "b", ""), new Predicate<String>() {
+            @Override
+            public boolean test(String testValue) {
+                return testValue == null || !testValue.isEmpty();
+            }
+        });
+
+        assertThat(filtered).containsExactly("a", null, "b");
+        assertThat(filtered).containsExactly("a", null, "b");
+    }
+
     @Test
     public void shouldGetNthElement() throws Exception {
         Iterable<Integer> numbers = newIterable(0, 1, 2, 3, 4, 5, 6);
@@ -189,6 +211,67 @@ public class IterablesTest extends ImmutableIteratorContract {
         assertThat(last.isPresent()).isFalse();
     }
 
+    @Test
+    public void shouldGetAndLastFromCollections() throws Exception {
+        List<Integer> arrayList = new ArrayList<Integer>(Arrays.asList(0, 1, 2));
+        LinkedList<Integer> linkedList = new LinkedList<Integer>(arrayList);
+        Set<Integer> set = new LinkedHashSet<Integer>(arrayList);
+        Iterable<Integer> plain = map(arrayList, new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                return argument;
+            }
+        });
+
+        for (Iterable<Integer> iterable : Arrays.<Iterable<Integer>>asList(arrayList, linkedList, set, plain)) {
+            assertThat(get(iterable, 1).get()).isEqualTo(1);
+            assertThat(get(iterable, 3).isPresent()).isFalse();
+            assertThat(last(iterable).get()).isEqualTo(2);
+        }
+        assertThat(last(new ArrayList<Integer>()).isPresent()).isFalse();
+        assertThat(last(new ArrayDeque<Integer>()).isPresent()).isFalse();
+        assertThat(last(new ArrayDeque<Integer>(arrayList)).get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldContainInCollections() throws Exception {
+        Set<String> hashed = new HashSet<String>(Arrays.asList("a", "b"));
+        Set<String> sorted = new TreeSet<String>(hashed);
+
+        assertThat(contains(hashed, "a")).isTrue();
+        assertThat(contains(hashed, "c")).isFalse();
+        assertThat(contains(sorted, "b")).isTrue();
+        assertThat(contains(sorted, null)).isFalse();
+    }
+
+    @Test
+    public void shouldContainByEquals() throws Exception {
+        Set<String> caseless = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        caseless.add("A");
+
+        assertThat(caseless.contains("a")).isTrue();
+        assertThat(contains(caseless, "a")).isFalse();
+        assertThat(contains(caseless, "A")).isTrue();
+    }
+
+    @Test
+    public void shouldFlatMap() throws Exception {
+        Iterable<String> words = newIterable("ab", "", "cde");
+        Iterable<Character> characters = flatMap(words, new Function<String, Iterable<Character>>() {
+            @Override
+            public Iterable<Character> apply(String argument) {
+                Character[] characters = new Character[argument.length()];
+                for (int i = 0; i < characters.length; i++) {
+                    characters[i] = argument.charAt(i);
+                }
+                return newIterable(characters);
+            }
+        });
+
+        assertThat(characters).containsExactly('a', 'b', 'c', 'd', 'e');
+        assertThat(characters).containsExactly('a', 'b', 'c', 'd', 'e');
+    }
+
     static class Accumulator implements BiFunction<Integer, String, Integer> {
         @Override
         public Integer apply(Integer first, String second) {
@@ -1,12 +1,25 @@
 package almost.functional.utils;
 
 import almost.functional.Consumer;
+import almost.functional.Function;
+import almost.functional.ImmutableIterator;
+import almost.functional.Predicate;
+import almost.functional.SizedIterator;
+import almost.functional.Stream;
 import com.github.nwillc.contracts.ImmutableIteratorContract;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static almost.functional.utils.Iterators.*;
@@ -51,6 +64,147 @@ public class IteratorsTest extends ImmutableIteratorContract {
         assertThat(count).isEqualTo(1);
     }
 
+    @Test
+    public void shouldNextNotOverdraw() throws Exception {
+        Iterator<Integer> numbersIterator = Arrays.asList(1, 2, 3).iterator();
+        Iterator<Integer> next2 = next(numbersIterator, 2);
+
+        assertThat(next2).containsExactly(1, 2);
+        assertThat(numbersIterator.next()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldSkip() throws Exception {
+        assertThat(skip(Arrays.asList(1, 2, 3, 4).iterator(), 2)).containsExactly(3, 4);
+        assertThat(skip(Arrays.asList(1, 2).iterator(), 3).hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldTakeWhile() throws Exception {
+        Iterator<Integer> taken = takeWhile(Arrays.asList(1, 2, 3, 1).iterator(), new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue < 3;
+            }
+        });
+
+        assertThat(taken).containsExactly(1, 2);
+    }
+
+    @Test
+    public void shouldDropWhile() throws Exception {
+        Iterator<Integer> dropped = dropWhile(Arrays.asList(1, 2, 3, 1).iterator(), new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue < 3;
+            }
+        });
+
+        assertThat(dropped).containsExactly(3, 1);
+    }
+
+    @Test
+    public void shouldFilter() throws Exception {
+        List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5);
+        Iterator<Integer> odds = filter(numbers.iterator(), new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 != 0;
+            }
+        });
+
+        assertThat(odds.hasNext()).isTrue();
+        assertThat(odds.hasNext()).isTrue();
+        assertThat(odds).containsExactly(1, 3, 5);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldFilterNoSuchElement() throws Exception {
+        Iterator<Integer> none = filter(Arrays.asList(1, 3).iterator(), new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 == 0;
+            }
+        });
+
+        none.next();
+    }
+
+    @Test
+    public void shouldSize() throws Exception {
+        List<Integer> numbers = Arrays.asList(1, 2, 3);
+        SizedIterator<Integer> sized = sized(numbers);
+
+        assertThat(sized.remaining()).isEqualTo(3);
+        assertThat(sized.isExact()).isTrue();
+        sized.next();
+        assertThat(sized.remaining()).isEqualTo(2);
+        assertThat(sizeHint(sized)).isEqualTo(2);
+        assertThat(sizeHint(numbers.iterator())).isEqualTo(-1);
+        assertThat(collect(sized)).containsExactly(2, 3);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldPropagateSize() throws Exception {
+        Iterator<String> mapped = map(sized(Arrays.asList(1, 2, 3)), new Function<Integer, String>() {
+            @Override
+            public String apply(Integer argument) {
+                return argument.toString();
+            }
+        });
+        assertThat(mapped instanceof SizedIterator).isTrue();
+        assertThat(sizeHint(mapped)).isEqualTo(3);
+
+        Iterator<Integer> concatenated = concat(sized(Arrays.asList(1, 2)), sized(Arrays.asList(3)));
+        assertThat(sizeHint(concatenated)).isEqualTo(3);
+        concatenated.next();
+        assertThat(sizeHint(concatenated)).isEqualTo(2);
+        assertThat(((SizedIterator<Integer>) concatenated).isExact()).isTrue();
+        assertThat(concat(sized(Arrays.asList(1, 2)), Arrays.asList(3).iterator()) instanceof SizedIterator).isFalse();
+    }
+
+    @Test
+    public void shouldFlatMap() throws Exception {
+        final List<Integer> closed = new ArrayList<Integer>();
+        Iterator<Integer> flattened = flatMap(Arrays.asList(0, 2, 3).iterator(), new Function<Integer, Iterable<Integer>>() {
+            @Override
+            public Iterable<Integer> apply(final Integer argument) {
+                if (argument == 3) {
+                    return null;
+                }
+                return Stream.of(argument, argument + 1).onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        closed.add(argument);
+                    }
+                });
+            }
+        });
+
+        assertThat(flattened.next()).isEqualTo(0);
+        assertThat(closed).isEmpty();
+        assertThat(flattened.next()).isEqualTo(1);
+        assertThat(flattened.next()).isEqualTo(2);
+        assertThat(closed).containsExactly(0);
+        assertThat(flattened.next()).isEqualTo(3);
+        assertThat(flattened.hasNext()).isFalse();
+        assertThat(closed).containsExactly(0, 2);
+    }
+
+    @Test
+    public void shouldMap() throws Exception {
+        List<Integer> numbers = Arrays.asList(1, 2, 3);
+        Iterator<String> strings = map(numbers.iterator(), new Function<Integer, String>() {
+            @Override
+            public String apply(Integer argument) {
+                return argument.toString();
+            }
+        });
+
+        assertThat(strings).containsExactly("1", "2", "3");
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void shouldConcat() throws Exception {
@@ -66,6 +220,86 @@ public class IteratorsTest extends ImmutableIteratorContract {
         assertThat(i).isEqualTo(7);
     }
 
+    @Test
+    public void shouldBatchReusingBuffer() throws Exception {
+        Iterator<List<Integer>> batches = batch(Arrays.asList(1, 2, 3, 4, 5).iterator(), 2, true);
+
+        List<Integer> first = batches.next();
+        assertThat(first).containsExactly(1, 2);
+        assertThat(batches.next()).isSameAs(first).containsExactly(3, 4);
+        assertThat(batches.next()).isSameAs(first).containsExactly(5);
+        assertThat(batches.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldSlide() throws Exception {
+        List<List<Integer>> windows = new ArrayList<List<Integer>>();
+        Iterator<List<Integer>> sliding = sliding(Arrays.asList(1, 2, 3, 4, 5).iterator(), 3, 1, false);
+        while (sliding.hasNext()) {
+            windows.add(sliding.next());
+        }
+
+        assertThat(windows).containsExactly(Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4), Arrays.asList(3, 4, 5));
+    }
+
+    @Test
+    public void shouldSlideReusingBuffer() throws Exception {
+        Iterator<List<Integer>> sliding = sliding(Arrays.asList(1, 2, 3, 4, 5, 6, 7).iterator(), 3, 2, true);
+
+        List<Integer> first = sliding.next();
+        assertThat(first).containsExactly(1, 2, 3);
+        assertThat(sliding.next()).isSameAs(first).containsExactly(3, 4, 5);
+        assertThat(sliding.next()).isSameAs(first).containsExactly(5, 6, 7);
+        assertThat(sliding.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldSlideSkipping() throws Exception {
+        Iterator<List<Integer>> sliding = sliding(Arrays.asList(1, 2, 3, 4, 5, 6, 7).iterator(), 2, 3, false);
+
+        assertThat(sliding.next()).containsExactly(1, 2);
+        assertThat(sliding.next()).containsExactly(4, 5);
+        assertThat(sliding.hasNext()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBadWindow() throws Exception {
+        sliding(Arrays.asList(1, 2).iterator(), 2, 0, false);
+    }
+
+    @Test
+    public void shouldFlattenNestedConcat() throws Exception {
+        Iterator<Integer> concatenated = Arrays.asList(0).iterator();
+        for (int i = 1; i < 100000; i++) {
+            concatenated = concat(concatenated, Arrays.asList(i).iterator());
+        }
+
+        int expected = 0;
+        while (concatenated.hasNext()) {
+            assertThat(concatenated.next()).isEqualTo(expected++);
+        }
+        assertThat(expected).isEqualTo(100000);
+    }
+
+    @Test
+    public void shouldConcatIterable() throws Exception {
+        List<Iterator<Integer>> iterators = new ArrayList<Iterator<Integer>>();
+        iterators.add(sized(Arrays.asList(1, 2)));
+        iterators.add(sized(new ArrayList<Integer>()));
+        iterators.add(concat(sized(Arrays.asList(3)), sized(Arrays.asList(4, 5))));
+        Iterator<Integer> concatenated = concat(iterators);
+
+        assertThat(sizeHint(concatenated)).isEqualTo(5);
+        assertThat(concatenated.next()).isEqualTo(1);
+        assertThat(sizeHint(concatenated)).isEqualTo(4);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldConcatNoSuchElement() throws Exception {
+        Iterator<Integer> concatenated = concat(new ArrayList<Integer>().iterator());
+        concatenated.next();
+    }
+
     @Test
     public void shouldParallelBatch() throws Exception {
         List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5);
@@ -87,4 +321,235 @@ public class IteratorsTest extends ImmutableIteratorContract {
         assertThat(batches.get()).isEqualTo(3);
         assertThat(count.get()).isEqualTo(numbers.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBoundParallelBatchesInFlight() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        final AtomicInteger consumed = new AtomicInteger(0);
+        final AtomicInteger maxAhead = new AtomicInteger(0);
+        Iterator<Integer> numbers = new ImmutableIterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 1000;
+            }
+
+            @Override
+            public Integer next() {
+                int ahead = pulled.incrementAndGet() - consumed.get();
+                if (ahead > maxAhead.get()) {
+                    maxAhead.set(ahead);
+                }
+                return pulled.get();
+            }
+        };
+
+        parallelBatch(numbers, new Consumer<Iterator<? extends Integer>>() {
+            @Override
+            public void accept(Iterator<? extends Integer> consumable) {
+                while (consumable.hasNext()) {
+                    consumable.next();
+                    consumed.incrementAndGet();
+                }
+            }
+        }, 10, 2);
+
+        assertThat(consumed.get()).isEqualTo(1000);
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(30);
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldPropagateParallelBatchFailure() throws Exception {
+        parallelBatch(Arrays.asList(1, 2, 3, 4).iterator(), new Consumer<Iterator<? extends Integer>>() {
+            @Override
+            public void accept(Iterator<? extends Integer> consumable) {
+                throw new IllegalStateException("failed batch");
+            }
+        }, 1, 1);
+    }
+
+    @Test
+    public void shouldBoundParallelMapInFlight() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        final AtomicInteger applied = new AtomicInteger(0);
+        final AtomicInteger maxAhead = new AtomicInteger(0);
+        Iterator<Integer> numbers = new ImmutableIterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 1000;
+            }
+
+            @Override
+            public Integer next() {
+                int ahead = pulled.incrementAndGet() - applied.get();
+                if (ahead > maxAhead.get()) {
+                    maxAhead.set(ahead);
+                }
+                return pulled.get();
+            }
+        };
+
+        List<Integer> results = parallelMap(numbers, new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer integer) {
+                applied.incrementAndGet();
+                return integer * 2;
+            }
+        }, 3, getExecutor());
+
+        assertThat(results).hasSize(1000);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i)).isEqualTo(2 * (i + 1));
+        }
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldPropagateParallelMapFailure() throws Exception {
+        parallelMap(Arrays.asList(1, 2, 3, 4).iterator(), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer integer) {
+                throw new IllegalStateException("failed element");
+            }
+        }, 1, getExecutor());
+    }
+
+    @Test(timeout = 20000)
+    public void shouldNestParallelMaps() throws Exception {
+        final List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 8 * Runtime.getRuntime().availableProcessors(); i++) {
+            numbers.add(i);
+        }
+
+        List<Integer> sums = parallelMap(numbers.iterator(), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer outer) {
+                try {
+                    int sum = 0;
+                    for (Integer inner : parallelMap(numbers.iterator(), new Function<Integer, Integer>() {
+                        @Override
+                        public Integer apply(Integer inner) {
+                            return inner;
+                        }
+                    })) {
+                        sum += inner;
+                    }
+                    return sum;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        final int expected = numbers.size() * (numbers.size() - 1) / 2;
+        assertThat(sums).hasSize(numbers.size());
+        for (Integer sum : sums) {
+            assertThat(sum).isEqualTo(expected);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void shouldNestParallelBatches() throws Exception {
+        final List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 8 * Runtime.getRuntime().availableProcessors(); i++) {
+            numbers.add(i);
+        }
+        final AtomicInteger count = new AtomicInteger(0);
+
+        parallelBatch(numbers.iterator(), new Consumer<Iterator<? extends Integer>>() {
+            @Override
+            public void accept(Iterator<? extends Integer> outer) {
+                while (outer.hasNext()) {
+                    outer.next();
+                    try {
+                        parallelBatch(numbers.iterator(), new Consumer<Iterator<? extends Integer>>() {
+                            @Override
+                            public void accept(Iterator<? extends Integer> inner) {
+                                while (inner.hasNext()) {
+                                    inner.next();
+                                    count.incrementAndGet();
+                                }
+                            }
+                        }, 1);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }, 1);
+
+        assertThat(count.get()).isEqualTo(numbers.size() * numbers.size());
+    }
+
+    @Test
+    public void shouldUseDaemonThreadsByDefault() throws Exception {
+        Future<Boolean> daemon = getExecutor().submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return Thread.currentThread().isDaemon();
+            }
+        });
+
+        assertThat(daemon.get()).isTrue();
+    }
+
+    @Test
+    public void shouldParallelMapOnGivenExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicInteger submitted = new AtomicInteger(0);
+        try {
+            List<Integer> doubled = parallelMap(Arrays.asList(1, 2).iterator(), new Function<Integer, Integer>() {
+                @Override
+                public Integer apply(Integer integer) {
+                    return integer * 2;
+                }
+            }, 2, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    submitted.incrementAndGet();
+                    executor.execute(command);
+                }
+            });
+
+            assertThat(doubled).containsExactly(2, 4);
+            assertThat(submitted.get()).isEqualTo(2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReplaceExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            setExecutor(executor);
+            assertThat(getExecutor()).isSameAs(executor);
+            setExecutor(null);
+            assertThat(getExecutor()).isNotSameAs(executor);
+            assertThat(getExecutor()).isSameAs(getExecutor());
+        } finally {
+            setExecutor(null);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldBatchOnWorkStealingExecutor() throws Exception {
+        final AtomicInteger sum = new AtomicInteger(0);
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 1; i <= 100; i++) {
+            numbers.add(i);
+        }
+
+        parallelBatch(numbers.iterator(), new Consumer<Iterator<? extends Integer>>() {
+            @Override
+            public void accept(Iterator<? extends Integer> consumable) {
+                while (consumable.hasNext()) {
+                    sum.addAndGet(consumable.next());
+                }
+            }
+        }, 7, 4, workStealingExecutor());
+
+        assertThat(sum.get()).isEqualTo(5050);
+        assertThat(workStealingExecutor()).isSameAs(workStealingExecutor());
+    }
+}
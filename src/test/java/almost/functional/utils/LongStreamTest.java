@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package almost.functional.utils;
+
+import almost.functional.*;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class LongStreamTest {
+
+    @Test
+    public void testSumOfLongs() throws Exception {
+        long total = Stream.of(1, 2, 3).mapToLong(new ToLongFunction<Integer>() {
+            @Override
+            public long applyAsLong(Integer argument) {
+                return argument * 1000000000000L;
+            }
+        }).sum();
+        assertThat(total).isEqualTo(6000000000000L);
+    }
+
+    @Test
+    public void testRangeFilter() throws Exception {
+        long count = LongStream.range(0L, 100L).filter(new LongPredicate() {
+            @Override
+            public boolean test(long testValue) {
+                return testValue % 10 == 0;
+            }
+        }).count();
+        assertThat(count).isEqualTo(10);
+    }
+
+    @Test
+    public void testMinMaxAverage() throws Exception {
+        assertThat(LongStream.of(5L, 2L, 9L).min().get()).isEqualTo(2L);
+        assertThat(LongStream.of(5L, 2L, 9L).max().get()).isEqualTo(9L);
+        assertThat(LongStream.of(5L, 2L, 8L).average().get()).isEqualTo(5.0, offset(0.0001));
+        assertThat(LongStream.of().min().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testReduceAndStatistics() throws Exception {
+        assertThat(LongStream.of(2L, 3L).reduce(1L, new LongBinaryOperator() {
+            @Override
+            public long applyAsLong(long first, long second) {
+                return first * second;
+            }
+        })).isEqualTo(6L);
+        LongSummaryStatistics statistics = LongStream.of(2L, 3L).map(new LongUnaryOperator() {
+            @Override
+            public long applyAsLong(long operand) {
+                return -operand;
+            }
+        }).summaryStatistics();
+        assertThat(statistics.getSum()).isEqualTo(-5L);
+        assertThat(statistics.getMin()).isEqualTo(-3L);
+    }
+
+    @Test
+    public void testBoxed() throws Exception {
+        assertThat(LongStream.of(1L, 2L).boxed().reduce(0L, new BiFunction<Long, Long, Long>() {
+            @Override
+            public Long apply(Long first, Long second) {
+                return first + second;
+            }
+        })).isEqualTo(3L);
+        assertThat(LongStream.of(1L, 2L).asDoubleStream().max().get()).isEqualTo(2.0, offset(0.0001));
+    }
+}
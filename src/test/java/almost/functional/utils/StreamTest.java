@@ -3,7 +3,21 @@ package almost.functional.utils;
 import almost.functional.*;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static almost.functional.Stream.concat;
 import static almost.functional.utils.IterablesTest.Accumulator;
@@ -68,6 +82,396 @@ public class StreamTest {
         })).isEqualTo(4 + 16 + 36 + 64);
     }
 
+    @Test
+    public void testLazyFilterMap() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        Stream<Integer> naturals = Stream.of(new SupplierIterable<Integer>(new Supplier<Optional<Integer>>() {
+            @Override
+            public Optional<Integer> get() {
+                return Optional.of(pulled.incrementAndGet());
+            }
+        }));
+
+        assertThat(naturals.filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 == 0;
+            }
+        }).map(new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                return argument * 10;
+            }
+        }).anyMatch(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue == 40;
+            }
+        })).isTrue();
+        assertThat(pulled.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFlatMap() throws Exception {
+        final AtomicInteger closed = new AtomicInteger(0);
+        Stream<String> letters = Stream.of("ab", "c").flatMap(new Function<String, Stream<String>>() {
+            @Override
+            public Stream<String> apply(String argument) {
+                String[] letters = new String[argument.length()];
+                for (int i = 0; i < letters.length; i++) {
+                    letters[i] = argument.substring(i, i + 1);
+                }
+                return Stream.of(letters).onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        closed.incrementAndGet();
+                    }
+                });
+            }
+        });
+
+        assertThat(letters.collect(Collectors.<String>toList())).containsExactly("a", "b", "c");
+        assertThat(closed.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testIterable() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (String s : Stream.of("a", "b")) {
+            builder.append(s);
+        }
+        assertThat(builder.toString()).isEqualTo("ab");
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        Stream<Integer> naturals = Stream.of(new SupplierIterable<Integer>(new Supplier<Optional<Integer>>() {
+            @Override
+            public Optional<Integer> get() {
+                return Optional.of(pulled.incrementAndGet());
+            }
+        }));
+
+        assertThat(naturals.limit(3).count()).isEqualTo(3);
+        assertThat(pulled.get()).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitNegative() throws Exception {
+        Stream.of(1, 2).limit(-1);
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        Stream<String> strings = Stream.of("a", "b", "c", "d");
+        Optional<String> reduction = strings.skip(2).reduce(new BiFunction<String, String, String>() {
+            @Override
+            public String apply(String first, String second) {
+                return first + second;
+            }
+        });
+        assertThat(reduction.get()).isEqualTo("cd");
+        assertThat(Stream.of("a").skip(4).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testTakeWhile() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        Stream<Integer> naturals = Stream.of(new SupplierIterable<Integer>(new Supplier<Optional<Integer>>() {
+            @Override
+            public Optional<Integer> get() {
+                return Optional.of(pulled.incrementAndGet());
+            }
+        }));
+
+        assertThat(naturals.takeWhile(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue < 5;
+            }
+        }).count()).isEqualTo(4);
+        assertThat(pulled.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void testDropWhile() throws Exception {
+        Stream<Integer> numbers = Stream.of(1, 2, 3, 1, 2);
+        Integer sum = numbers.dropWhile(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue < 3;
+            }
+        }).reduce(0, new BiFunction<Integer, Integer, Integer>() {
+            @Override
+            public Integer apply(Integer first, Integer second) {
+                return first + second;
+            }
+        });
+        assertThat(sum).isEqualTo(6);
+    }
+
+    @Test(timeout = 20000)
+    public void testNestedParallel() throws Exception {
+        final List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 1024 * Runtime.getRuntime().availableProcessors(); i++) {
+            numbers.add(i);
+        }
+        final AtomicLong count = new AtomicLong();
+
+        Stream.of(numbers).parallel().forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer outer) {
+                Stream.of(numbers.subList(0, 1024)).parallel().forEach(new Consumer<Integer>() {
+                    @Override
+                    public void accept(Integer inner) {
+                        count.incrementAndGet();
+                    }
+                });
+            }
+        });
+
+        assertThat(count.get()).isEqualTo(numbers.size() * 1024L);
+    }
+
+    @Test
+    public void testChunked() throws Exception {
+        List<List<Integer>> chunks = Stream.of(1, 2, 3, 4, 5).chunked(2).collect(Collectors.<List<Integer>>toList());
+
+        assertThat(chunks).containsExactly(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+    }
+
+    @Test
+    public void testChunkedReuse() throws Exception {
+        final List<Integer> sizes = new ArrayList<Integer>();
+        final List<List<Integer>> seen = new ArrayList<List<Integer>>();
+        Stream.of(1, 2, 3, 4, 5).chunked(2, true).forEach(new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> chunk) {
+                sizes.add(chunk.size());
+                seen.add(chunk);
+            }
+        });
+
+        assertThat(sizes).containsExactly(2, 2, 1);
+        assertThat(seen.get(0)).isSameAs(seen.get(2));
+    }
+
+    @Test
+    public void testChunkedReuseParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 40; i++) {
+            numbers.add(i);
+        }
+        final List<List<Integer>> seen = new ArrayList<List<Integer>>();
+        Stream<List<Integer>> chunks = Stream.of(numbers.iterator()).chunked(4, true).parallel();
+        chunks.forEach(new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> chunk) {
+                seen.add(new ArrayList<Integer>(chunk));
+            }
+        });
+
+        assertThat(chunks.isParallel()).isFalse();
+        assertThat(seen).hasSize(10);
+        for (int i = 0; i < seen.size(); i++) {
+            assertThat(seen.get(i)).containsExactly(4 * i, 4 * i + 1, 4 * i + 2, 4 * i + 3);
+        }
+    }
+
+    @Test
+    public void testSlidingReuseParallelDownstream() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 3000; i++) {
+            numbers.add(i);
+        }
+        long count = Stream.of(numbers.iterator()).sliding(2, 1, true).skip(1).parallel()
+                .filter(new Predicate<List<Integer>>() {
+                    @Override
+                    public boolean test(List<Integer> window) {
+                        return window.get(1) == window.get(0) + 1;
+                    }
+                }).count();
+
+        assertThat(count).isEqualTo(2998);
+    }
+
+    @Test
+    public void testSliding() throws Exception {
+        List<List<String>> windows = Stream.of("a", "b", "c", "d").sliding(2, 1).collect(Collectors.<List<String>>toList());
+
+        assertThat(windows).containsExactly(Arrays.asList("a", "b"), Arrays.asList("b", "c"), Arrays.asList("c", "d"));
+    }
+
+    @Test
+    public void testSlidingParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(i);
+        }
+
+        assertThat(Stream.of(numbers).parallel().sliding(10, 10).count()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        File file = File.createTempFile("almost-functional-lines", ".txt");
+        file.deleteOnExit();
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write("one\ntwo\nthree\n".getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+
+        Stream<String> lines = Stream.lines(file);
+        assertThat(lines.collect(Collectors.<String>toList())).containsExactly("one", "two", "three");
+        lines.close();
+
+        Stream<CharSequence> views = Stream.recordViews(file, '\n', Charset.forName("ISO-8859-1"));
+        assertThat(views.count()).isEqualTo(3);
+        views.close();
+    }
+
+    @Test
+    public void testMinMax() throws Exception {
+        Comparator<String> byLength = new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return o1.length() - o2.length();
+            }
+        };
+
+        assertThat(Stream.of("bb", "a", "ccc", "d", "eee").min(byLength).get()).isEqualTo("a");
+        assertThat(Stream.of("bb", "a", "ccc", "d", "eee").max(byLength).get()).isEqualTo("ccc");
+        assertThat(Stream.<String>of().max(byLength).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testMinMaxParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add((i * 7919) % 10007);
+        }
+        Comparator<Integer> natural = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+        };
+
+        assertThat(Stream.of(numbers).parallel().min(natural).get()).isEqualTo(0);
+        assertThat(Stream.of(numbers).parallel().max(natural).get())
+                .isEqualTo(Stream.of(numbers).max(natural).get());
+    }
+
+    @Test
+    public void testTop() throws Exception {
+        Comparator<Integer> natural = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+        };
+
+        assertThat(Stream.of(5, 1, 9, 3, 7, 9).top(3, natural)).containsExactly(9, 9, 7);
+        assertThat(Stream.of(5, 1).top(3, natural)).containsExactly(5, 1);
+        assertThat(Stream.of(5, 1).top(0, natural)).isEmpty();
+    }
+
+    @Test
+    public void testTopParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            numbers.add((i * 7919) % 100003);
+        }
+        Comparator<Integer> natural = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+        };
+
+        List<Integer> top = Stream.of(numbers).parallel().top(100, natural);
+        assertThat(top).hasSize(100);
+        assertThat(top).isEqualTo(Stream.of(numbers).sorted(Collections.reverseOrder(natural)).limit(100)
+                .collect(Collectors.<Integer>toList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopNegative() throws Exception {
+        Stream.of(1).top(-1, Collections.<Integer>reverseOrder());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            numbers.add(i);
+        }
+        Stream<Integer> prefetched = Stream.of(numbers.iterator()).prefetch(16);
+
+        assertThat(prefetched.collect(Collectors.<Integer>toList())).isEqualTo(numbers);
+        prefetched.close();
+    }
+
+    @Test
+    public void testMapAsync() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<String> mapped = Stream.of(1, 2, 3, 4, 5).mapAsync(new Function<Integer, String>() {
+                @Override
+                public String apply(Integer argument) {
+                    return "#" + argument;
+                }
+            }, 3, executor).collect(Collectors.<String>toList());
+
+            assertThat(mapped).containsExactly("#1", "#2", "#3", "#4", "#5");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcatMany() throws Exception {
+        Stream<Integer> concatenated = Stream.of(0);
+        for (int i = 1; i < 100000; i++) {
+            concatenated = concat(concatenated, Stream.of(i));
+        }
+        assertThat(concatenated.count()).isEqualTo(100000);
+
+        List<Stream<Integer>> shards = new ArrayList<Stream<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            shards.add(Stream.of(i, i));
+        }
+        shards.add(Stream.of(1000).parallel());
+        Stream<Integer> merged = Stream.concat(shards);
+        assertThat(merged.isParallel()).isTrue();
+        assertThat(merged.count()).isEqualTo(201);
+    }
+
+    @Test
+    public void testConcatClose() throws Exception {
+        final List<String> closed = new ArrayList<String>();
+        List<Stream<Integer>> shards = new ArrayList<Stream<Integer>>();
+        for (int i = 0; i < 3; i++) {
+            final String name = "shard" + i;
+            shards.add(Stream.of(i).onClose(new Runnable() {
+                @Override
+                public void run() {
+                    closed.add(name);
+                }
+            }));
+        }
+        Stream<Integer> pair = concat(shards.get(0), shards.get(1));
+        pair.close();
+        assertThat(closed).containsOnly("shard0", "shard1");
+
+        closed.clear();
+        Stream.concat(shards).close();
+        assertThat(closed).containsOnly("shard0", "shard1", "shard2");
+    }
+
     @Test
     public void testAnyMatchSucceed() throws Exception {
         Stream<String> strings = Stream.of("a", "b", "c");
@@ -158,6 +562,284 @@ public class StreamTest {
         assertThat(strings.count()).isEqualTo(3);
     }
 
+    @Test
+    public void testParallel() throws Exception {
+        Stream<Integer> numbers = Stream.of(1, 2, 3);
+        assertThat(numbers.isParallel()).isFalse();
+        assertThat(numbers.parallel().isParallel()).isTrue();
+        assertThat(numbers.parallel().sequential().isParallel()).isFalse();
+    }
+
+    @Test
+    public void testParallelReduce() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 1; i <= 100000; i++) {
+            numbers.add(i);
+        }
+        Long sum = Stream.of(numbers).parallel().filter(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer testValue) {
+                return testValue % 2 == 0;
+            }
+        }).map(new Function<Integer, Long>() {
+            @Override
+            public Long apply(Integer argument) {
+                return argument.longValue();
+            }
+        }).reduce(0L, new BiFunction<Long, Long, Long>() {
+            @Override
+            public Long apply(Long first, Long second) {
+                return first + second;
+            }
+        }, new BiFunction<Long, Long, Long>() {
+            @Override
+            public Long apply(Long first, Long second) {
+                return first + second;
+            }
+        });
+        assertThat(sum).isEqualTo(2500050000L);
+    }
+
+    @Test
+    public void testParallelReduceOrdered() throws Exception {
+        String[] letters = new String[2000];
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = String.valueOf((char) ('a' + i % 26));
+            expected.append(letters[i]);
+        }
+        BiFunction<String, String, String> append = new BiFunction<String, String, String>() {
+            @Override
+            public String apply(String first, String second) {
+                return first + second;
+            }
+        };
+        assertThat(Stream.of(letters).parallel().reduce("", append, append)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void testParallelCountIterator() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        Stream<Integer> naturals = Stream.of(new SupplierIterable<Integer>(new Supplier<Optional<Integer>>() {
+            @Override
+            public Optional<Integer> get() {
+                return pulled.get() < 5000 ? Optional.of(pulled.incrementAndGet()) : Optional.<Integer>empty();
+            }
+        }));
+        assertThat(naturals.parallel().count()).isEqualTo(5000);
+    }
+
+    @Test
+    public void testParallelForEach() throws Exception {
+        final AtomicInteger sum = new AtomicInteger(0);
+        Stream.of(1, 2, 3, 4, 5).limit(4).parallel().forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer consumable) {
+                sum.addAndGet(consumable);
+            }
+        });
+        assertThat(sum.get()).isEqualTo(10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelException() throws Exception {
+        Stream.of(1, 2, 3).parallel().forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer consumable) {
+                throw new IllegalStateException();
+            }
+        });
+    }
+
+    @Test
+    public void testCollectSizeHint() throws Exception {
+        final AtomicInteger hint = new AtomicInteger(0);
+        Collector<String, List<String>, Integer> sizing = new Collector<String, List<String>, Integer>() {
+            @Override
+            public List<String> supply(int sizeHint) {
+                hint.set(sizeHint);
+                return new ArrayList<String>();
+            }
+
+            @Override
+            public List<String> accumulate(List<String> container, String element) {
+                container.add(element);
+                return container;
+            }
+
+            @Override
+            public List<String> combine(List<String> first, List<String> second) {
+                first.addAll(second);
+                return first;
+            }
+
+            @Override
+            public Integer finish(List<String> container) {
+                return container.size();
+            }
+        };
+        Function<String, String> identity = new Function<String, String>() {
+            @Override
+            public String apply(String argument) {
+                return argument;
+            }
+        };
+
+        assertThat(Stream.of("a", "b", "c").map(identity).collect(sizing)).isEqualTo(3);
+        assertThat(hint.get()).isEqualTo(3);
+        assertThat(Stream.of("a", "b", "c").limit(2).collect(sizing)).isEqualTo(2);
+        assertThat(hint.get()).isEqualTo(Collector.UNKNOWN_SIZE);
+    }
+
+    @Test
+    public void testSizedCount() throws Exception {
+        final AtomicInteger mapped = new AtomicInteger(0);
+        Stream<Integer> lengths = Stream.of(Arrays.asList("a", "bb", "ccc")).map(new Function<String, Integer>() {
+            @Override
+            public Integer apply(String argument) {
+                mapped.incrementAndGet();
+                return argument.length();
+            }
+        });
+
+        assertThat(lengths.count()).isEqualTo(3);
+        assertThat(mapped.get()).isEqualTo(0);
+        assertThat(concat(Stream.of("a", "b"), Stream.of(Arrays.asList("c"))).count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testAggregateBy() throws Exception {
+        Map<Integer, Integer> totals = Stream.of("a", "bb", "c", "dd", "eee").aggregateBy(new Function<String, Integer>() {
+            @Override
+            public Integer apply(String argument) {
+                return argument.length();
+            }
+        }, 0, new BiFunction<Integer, String, Integer>() {
+            @Override
+            public Integer apply(Integer first, String second) {
+                return first + second.length();
+            }
+        });
+        assertThat(totals).hasSize(3).containsEntry(1, 2).containsEntry(2, 4).containsEntry(3, 3);
+    }
+
+    @Test
+    public void testAggregateByParallel() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            numbers.add(i);
+        }
+        BiFunction<Long, Long, Long> sum = new BiFunction<Long, Long, Long>() {
+            @Override
+            public Long apply(Long first, Long second) {
+                return first + second;
+            }
+        };
+        Map<Integer, Long> counts = Stream.of(numbers).parallel().aggregateBy(new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                return argument % 3;
+            }
+        }, 0L, new BiFunction<Long, Integer, Long>() {
+            @Override
+            public Long apply(Long first, Integer second) {
+                return first + 1;
+            }
+        }, sum);
+        assertThat(counts).hasSize(3).containsEntry(0, 33334L).containsEntry(1, 33333L).containsEntry(2, 33333L);
+    }
+
+    @Test
+    public void testDistinct() throws Exception {
+        assertThat(Stream.of("b", "a", "b", "c", "a").distinct().collect(Collectors.<String>toList()))
+                .containsExactly("b", "a", "c");
+    }
+
+    @Test
+    public void testDistinctApprox() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 2000; i++) {
+            numbers.add(i % 1000);
+        }
+        long count = Stream.of(numbers).distinctApprox(1000, 0.001).count();
+        assertThat(count).isLessThanOrEqualTo(1000).isGreaterThan(990);
+    }
+
+    @Test
+    public void testDistinctApproxNumbers() throws Exception {
+        List<BigDecimal> decimals = Stream.of(new BigDecimal("1.10"), new BigDecimal("1.20"), new BigDecimal("1.30"),
+                new BigDecimal("2.5")).distinctApprox(1000000, 0.001).collect(Collectors.<BigDecimal>toList());
+        assertThat(decimals).hasSize(4);
+
+        List<Object> mixed = Stream.<Object>of(1, 1L, (short) 1, (byte) 1, 1.0, 1.0f)
+                .distinctApprox(1000000, 0.001).collect(Collectors.<Object>toList());
+        assertThat(mixed).hasSize(6);
+    }
+
+    @Test
+    public void testDistinctApproxHasher() throws Exception {
+        List<String> words = Stream.of("Aa", "BB", "Aa", "ccc").distinctApprox(100, 1e-9, new ToLongFunction<String>() {
+            @Override
+            public long applyAsLong(String argument) {
+                return argument.charAt(0);
+            }
+        }).collect(Collectors.<String>toList());
+
+        assertThat(words).containsExactly("Aa", "BB", "ccc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDistinctApproxArguments() throws Exception {
+        Stream.of(1).distinctApprox(10, 0.0);
+    }
+
+    @Test
+    public void testSorted() throws Exception {
+        assertThat(Stream.of(3, 1, 2).sorted().collect(Collectors.<Integer>toList())).containsExactly(1, 2, 3);
+        assertThat(Stream.of("a", "ccc", "bb").sorted(new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return second.length() - first.length();
+            }
+        }, 1).collect(Collectors.<String>toList())).containsExactly("ccc", "bb", "a");
+    }
+
+    @Test
+    public void testSortedIsLazy() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger(0);
+        Stream<Integer> numbers = Stream.of(3, 1, 2).map(new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer argument) {
+                pulled.incrementAndGet();
+                return argument;
+            }
+        }).sorted();
+        assertThat(pulled.get()).isEqualTo(0);
+        assertThat(numbers.limit(1).collect(Collectors.<Integer>toList())).containsExactly(1);
+        assertThat(pulled.get()).isEqualTo(3);
+        numbers.close();
+    }
+
+    @Test
+    public void onCloseDerived() throws Exception {
+        final AtomicBoolean tattleTale = new AtomicBoolean(false);
+        Stream<String> strings = Stream.of("a", "bb", "c");
+        strings.onClose(new Runnable() {
+            @Override
+            public void run() {
+                tattleTale.set(true);
+            }
+        });
+
+        strings.filter(new Predicate<String>() {
+            @Override
+            public boolean test(String testValue) {
+                return testValue.length() == 1;
+            }
+        }).close();
+        assertThat(tattleTale.get()).isTrue();
+    }
+
     @Test
     public void onClose() throws Exception {
         final AtomicBoolean tattleTale = new AtomicBoolean(false);